@@ -0,0 +1,116 @@
+package com.infusion.relnotesgen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.infusion.relnotesgen.util.SyntheticGitRepo;
+
+/**
+ * Reads messages of whole history of generated repository by first and last commit id, history is linear or every
+ * n-th commit merges side branch. Generated repositories are cached, see {@link SyntheticGitRepo}. Matching of
+ * decoded messages is compared with scanning of raw ones, run with '-prof gc' to see allocation per commit. All
+ * commits are walked or only first parent line with or without merge commits, e.g. '-p mergeEvery=1 -p branchLength=20'
+ * shows how much first parent walk saves on history made mostly of merged branches.
+ *
+ * @author trojek
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GitFacadeReadBenchmark {
+
+    @Param({"1000", "10000"})
+    private int commitCount;
+
+    @Param({"0", "10"})
+    private int mergeEvery;
+
+    @Param({"3"})
+    private int branchLength;
+
+    @Param({"all", "firstParent", "firstParentNoMerges"})
+    private String walk;
+
+    private File workDirectory;
+    private GitFacade gitFacade;
+    private String firstCommit;
+    private String lastCommit;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticGitRepo repo = new SyntheticGitRepo().commits(commitCount).mergeEvery(mergeEvery, branchLength).create();
+        firstCommit = repo.getFirstCommit();
+        lastCommit = repo.getHeadCommit();
+
+        workDirectory = Files.createTempDirectory("GitFacadeReadBenchmark").toFile();
+        gitFacade = new GitFacade(repo.configuration()
+                .gitDirectory(workDirectory.getAbsolutePath())
+                .fetchOnly(true)
+                .firstParent(!"all".equals(walk))
+                .firstParentMerges(!"firstParentNoMerges".equals(walk))
+                .build());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        gitFacade.close();
+        FileUtils.deleteDirectory(workDirectory);
+    }
+
+    @Benchmark
+    public int readByCommit() {
+        final int[] messages = {0};
+        gitFacade.readByCommit(firstCommit, lastCommit, new SCMFacade.MessageConsumer() {
+
+            @Override
+            public void consume(final String message) {
+                messages[0]++;
+            }
+        });
+        return messages[0];
+    }
+
+    @Benchmark
+    public Set<String> matchDecodedMessages() {
+        Set<String> jiraIds = new HashSet<>();
+        final SCMFacade.MessageConsumer matcher = new JiraIssueIdMatcher("SYM-\\d+").collectJiraIds(jiraIds);
+        //plain message consumer gets decoded messages
+        gitFacade.readByCommit(firstCommit, lastCommit, new SCMFacade.MessageConsumer() {
+
+            @Override
+            public void consume(final String message) {
+                matcher.consume(message);
+            }
+        });
+        return jiraIds;
+    }
+
+    @Benchmark
+    public Set<String> scanRawMessages() {
+        Set<String> jiraIds = new HashSet<>();
+        gitFacade.readByCommit(firstCommit, lastCommit, new JiraIssueIdMatcher("SYM-\\d+").collectJiraIds(jiraIds));
+        return jiraIds;
+    }
+}
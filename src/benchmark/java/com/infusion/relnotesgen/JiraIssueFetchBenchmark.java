@@ -0,0 +1,89 @@
+package com.infusion.relnotesgen;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.atlassian.jira.rest.client.domain.Issue;
+import com.infusion.relnotesgen.util.StubJiraServer;
+import com.infusion.relnotesgen.util.StubJiraServer.Latency;
+
+/**
+ * Fetches generated issues from local stub jira answering with exponentially distributed latency, issues are fetched
+ * one by one, by concurrent threads or with chunked JQL searches.
+ *
+ * @author trojek
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class JiraIssueFetchBenchmark {
+
+    @Param({"single", "threads", "search"})
+    private String strategy;
+
+    @Param({"200"})
+    private int issueCount;
+
+    @Param({"20"})
+    private int meanLatency;
+
+    private StubJiraServer jira;
+    private Set<String> issueKeys;
+    private Configuration configuration;
+
+    @Setup
+    public void setUp() {
+        jira = new StubJiraServer().issues("GEN", issueCount).latency(Latency.exponential(2, meanLatency)).start();
+        issueKeys = new HashSet<>();
+        for (int i = 1; i <= issueCount; i++) {
+            issueKeys.add("GEN-" + i);
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.JIRA_URL, jira.getUrl());
+        properties.setProperty(Configuration.JIRA_USERNAME, "benchmark");
+        properties.setProperty(Configuration.JIRA_PASSWORD, "benchmark");
+        if ("threads".equals(strategy)) {
+            properties.setProperty(Configuration.JIRA_FETCH_THREADS, "8");
+        } else if ("search".equals(strategy)) {
+            properties.setProperty(Configuration.JIRA_SEARCH_CHUNKSIZE, "50");
+        }
+        configuration = new Configuration(properties);
+    }
+
+    @TearDown
+    public void tearDown() {
+        MainInvoker.closeJiraClients();
+        jira.stop();
+    }
+
+    @Benchmark
+    public Collection<Issue> findIssues() {
+        JiraIssueDao jiraIssueDao = new JiraIssueDao(configuration);
+        try {
+            return jiraIssueDao.findIssues(issueKeys);
+        } finally {
+            jiraIssueDao.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.infusion.relnotesgen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares finding jira ids with regular expression alternating all project keys against scanning for the keys with
+ * {@link JiraIssueKeyScanner}.
+ *
+ * @author trojek
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JiraIssueIdMatcherBenchmark {
+
+    private static final String[] WORDS = {"fixed", "added", "removed", "merge", "branch", "of", "the", "null", "check",
+        "for", "SYMBOL", "CORE", "review", "comments", "-", "1.0.2", "[WIP]", "release", "notes"};
+
+    @Param({"1", "10", "50"})
+    private int projects;
+
+    @Param({"10000"})
+    private int messageCount;
+
+    private List<String> messages;
+    private JiraIssueIdMatcher regexMatcher;
+    private JiraIssueIdMatcher scanningMatcher;
+
+    @Setup
+    public void setUp() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < projects; i++) {
+            keys.add("PRJ" + (char) ('A' + i % 26) + (i / 26 == 0 ? "" : String.valueOf(i / 26)));
+        }
+        regexMatcher = new JiraIssueIdMatcher("(" + StringUtils.join(keys, "|") + ")-\\d+");
+        scanningMatcher = new JiraIssueIdMatcher(null, StringUtils.join(keys, ","));
+
+        Random random = new Random(42);
+        messages = new ArrayList<>(messageCount);
+        for (int i = 0; i < messageCount; i++) {
+            StringBuilder message = new StringBuilder();
+            if (random.nextInt(4) != 0) {
+                message.append(keys.get(random.nextInt(keys.size()))).append('-').append(random.nextInt(5000)).append(' ');
+            }
+            for (int j = 0; j < 10 + random.nextInt(30); j++) {
+                message.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            messages.add(message.append('\n').toString());
+        }
+    }
+
+    @Benchmark
+    public Set<String> regex() {
+        return regexMatcher.findJiraIds(messages);
+    }
+
+    @Benchmark
+    public Set<String> scanner() {
+        return scanningMatcher.findJiraIds(messages);
+    }
+}
@@ -0,0 +1,70 @@
+package com.infusion.relnotesgen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matches growing number of messages sequentially and in parallel to find number of messages from which parallel
+ * matching pays off, {@link JiraIssueIdMatcher#DEFAULT_PARALLEL_THRESHOLD} is based on it.
+ *
+ * @author trojek
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JiraIssueIdMatcherParallelBenchmark {
+
+    private static final String PATTERN = "SYM-\\d+";
+
+    @Param({"100", "1000", "2500", "5000", "10000", "100000"})
+    private int messageCount;
+
+    private List<String> messages;
+    private JiraIssueIdMatcher sequentialMatcher;
+    private JiraIssueIdMatcher parallelMatcher;
+
+    @Setup
+    public void setUp() {
+        sequentialMatcher = new JiraIssueIdMatcher(PATTERN, null, 0);
+        parallelMatcher = new JiraIssueIdMatcher(PATTERN, null, 1);
+
+        Random random = new Random(42);
+        messages = new ArrayList<>(messageCount);
+        for (int i = 0; i < messageCount; i++) {
+            StringBuilder message = new StringBuilder("SYM-").append(random.nextInt(5000)).append(' ');
+            for (int j = 0; j < 10 + random.nextInt(30); j++) {
+                message.append("word").append(random.nextInt(100)).append(' ');
+            }
+            messages.add(message.append('\n').toString());
+        }
+    }
+
+    @Benchmark
+    public Set<String> sequential() {
+        return sequentialMatcher.findJiraIds(messages);
+    }
+
+    @Benchmark
+    public Set<String> parallel() {
+        return parallelMatcher.findJiraIds(messages);
+    }
+}
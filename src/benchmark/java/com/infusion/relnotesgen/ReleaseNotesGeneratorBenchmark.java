@@ -0,0 +1,86 @@
+package com.infusion.relnotesgen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.atlassian.jira.rest.client.domain.Issue;
+import com.atlassian.jira.rest.client.internal.json.IssueJsonParser;
+
+/**
+ * Generates report of synthetic issues built from test issue json with default template.
+ *
+ * @author trojek
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReleaseNotesGeneratorBenchmark {
+
+    private static final String[] TYPES = {"New Feature", "Epic", "Bug", "Task", "Technical Task", "Improvement"};
+    private static final String[] PRIORITIES = {"Highest", "High", "Medium", "Low", "Lowest"};
+
+    @Param({"10", "100", "1000"})
+    private int issueCount;
+
+    private List<Issue> issues;
+    private ReleaseNotesGenerator generator;
+    private File reportDirectory;
+
+    @Setup
+    public void setUp() throws IOException, JSONException {
+        Properties properties = new Properties();
+        properties.setProperty(Configuration.JIRA_URL, "http://localhost/jira");
+        properties.setProperty(Configuration.ISSUE_SORT_TYPE, "New Feature,Bug");
+        generator = new ReleaseNotesGenerator(new Configuration(properties));
+        reportDirectory = Files.createTempDirectory("ReleaseNotesGeneratorBenchmark").toFile();
+
+        String issueJson = IOUtils.toString(getClass().getResource("/testissues/SYM-32.json"), "UTF-8");
+        IssueJsonParser parser = new IssueJsonParser();
+        issues = new ArrayList<>(issueCount);
+        for (int i = 0; i < issueCount; i++) {
+            JSONObject json = new JSONObject(issueJson);
+            json.put("key", "SYM-" + (1000 + i));
+            JSONObject fields = json.getJSONObject("fields");
+            fields.put("summary", "Synthetic issue number " + i + " with summary of usual length");
+            fields.getJSONObject("issuetype").put("name", TYPES[i % TYPES.length]);
+            fields.getJSONObject("priority").put("name", PRIORITIES[i % PRIORITIES.length]);
+            issues.add(parser.parse(json));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(reportDirectory);
+    }
+
+    @Benchmark
+    public File generate() throws IOException {
+        return generator.generate(issues, reportDirectory, "1.0.0");
+    }
+}
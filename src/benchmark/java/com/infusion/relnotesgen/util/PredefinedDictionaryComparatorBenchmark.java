@@ -0,0 +1,65 @@
+package com.infusion.relnotesgen.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sorts issue type names with dictionary of given size, half of sorted names are not in dictionary.
+ *
+ * @author trojek
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredefinedDictionaryComparatorBenchmark {
+
+    @Param({"3", "20"})
+    private int dictionarySize;
+
+    @Param({"1000"})
+    private int nameCount;
+
+    private PredefinedDictionaryComparator comparator;
+    private List<String> names;
+
+    @Setup
+    public void setUp() {
+        String[] dictionary = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary[i] = "Type " + i;
+        }
+        comparator = new PredefinedDictionaryComparator(dictionary);
+
+        Random random = new Random(42);
+        names = new ArrayList<>(nameCount);
+        for (int i = 0; i < nameCount; i++) {
+            names.add("Type " + random.nextInt(2 * dictionarySize));
+        }
+    }
+
+    @Benchmark
+    public List<String> sort() {
+        List<String> sorted = new ArrayList<>(names);
+        Collections.sort(sorted, comparator);
+        return sorted;
+    }
+}
@@ -0,0 +1,166 @@
+package com.infusion.relnotesgen;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keys (jira issue ids) found in message of every read commit, stored in git directory so following runs read only
+ * messages of commits which weren't read before. Commits never change so stored keys stay valid until keys are found
+ * differently, index stores hash of consumer's signature (issue pattern or project keys) and is dropped when it
+ * differs. Keys found by pattern may contain any character so they are stored escaped, separated by tabs.
+ *
+ * @author trojek
+ *
+ */
+class CommitKeyIndex {
+
+    private final static Logger logger = LoggerFactory.getLogger(Configuration.LOGGER_NAME);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String INDEX_FILE = "relnotesgen-keyindex";
+    private static final String SEPARATOR = "\t";
+    /**
+     * Part of stamp, index stored in other format is built again
+     */
+    private static final String FORMAT = "escaped-keys:";
+
+    private final File indexFile;
+    private final String stamp;
+    /**
+     * Escaped keys of commit joined with tab, empty for commits without keys
+     */
+    private final Map<ObjectId, String> entries;
+    private int hits;
+    private int misses;
+
+    private CommitKeyIndex(final File indexFile, final String stamp, final Map<ObjectId, String> entries) {
+        this.indexFile = indexFile;
+        this.stamp = stamp;
+        this.entries = entries;
+    }
+
+    static CommitKeyIndex load(final File gitDirectory, final String signature) {
+        long startTime = System.currentTimeMillis();
+        File indexFile = new File(gitDirectory, INDEX_FILE);
+        String stamp = stamp(signature);
+
+        Map<ObjectId, String> entries = new HashMap<>();
+        String storedStamp = read(indexFile, entries);
+        if (storedStamp != null && !stamp.equals(storedStamp)) {
+            logger.info("Keys are found differently than when commit key index {} was built, it will be built again", indexFile.getAbsolutePath());
+            entries.clear();
+        }
+        logger.info("Commit key index with {} commits read in {} milis", entries.size(), System.currentTimeMillis() - startTime);
+        return new CommitKeyIndex(indexFile, stamp, entries);
+    }
+
+    /**
+     * @return stored keys of commit or null when commit isn't indexed
+     */
+    Set<String> get(final AnyObjectId commitId) {
+        String keys = entries.get(commitId);
+        if (keys == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        if (keys.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> commitKeys = new HashSet<>();
+        for (String key : keys.split(SEPARATOR)) {
+            commitKeys.add(StringEscapeUtils.unescapeJava(key));
+        }
+        return commitKeys;
+    }
+
+    void put(final AnyObjectId commitId, final Set<String> keys) {
+        StringBuilder escapedKeys = new StringBuilder();
+        for (String key : keys) {
+            if (escapedKeys.length() > 0) {
+                escapedKeys.append(SEPARATOR);
+            }
+            //escaped key doesn't contain tab or line break
+            escapedKeys.append(StringEscapeUtils.escapeJava(key));
+        }
+        entries.put(commitId.copy(), escapedKeys.toString());
+    }
+
+    int hits() {
+        return hits;
+    }
+
+    int misses() {
+        return misses;
+    }
+
+    /**
+     * Writes index when commits which weren't indexed were added.
+     */
+    void store() {
+        if (misses == 0 && indexFile.exists()) {
+            return;
+        }
+        try {
+            File temp = File.createTempFile("keyindex", ".tmp", indexFile.getParentFile());
+            try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), UTF_8)) {
+                writer.write(stamp);
+                writer.newLine();
+                for (Map.Entry<ObjectId, String> entry : entries.entrySet()) {
+                    writer.write(entry.getKey().getName());
+                    writer.write(SEPARATOR);
+                    writer.write(entry.getValue());
+                    writer.newLine();
+                }
+            }
+            Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Couldn't store commit key index {}. Cause: {}", indexFile.getAbsolutePath(), e.getMessage());
+        }
+    }
+
+    private static String stamp(final String signature) {
+        return ObjectId.fromRaw(Constants.newMessageDigest().digest((FORMAT + signature).getBytes(UTF_8))).getName();
+    }
+
+    /**
+     * Reads stored keys by commit id into given map.
+     *
+     * @return stamp of stored index or null when there is no index or it couldn't be read
+     */
+    private static String read(final File indexFile, final Map<ObjectId, String> entries) {
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), UTF_8)) {
+            String stamp = reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf(SEPARATOR);
+                entries.put(ObjectId.fromString(line.substring(0, separator)), line.substring(separator + 1));
+            }
+            return stamp;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Couldn't read commit key index {}, it will be built again. Cause: {}", indexFile.getAbsolutePath(), e.getMessage());
+            entries.clear();
+            return null;
+        }
+    }
+}
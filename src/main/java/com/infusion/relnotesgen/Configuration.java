@@ -21,6 +21,13 @@ public class Configuration {
 
     static final String GIT_DIRECTORY = "git.directory";
     static final String GIT_BRANCH = "git.branch";
+    static final String GIT_BARE = "git.bare";
+    static final String GIT_FETCHONLY = "git.fetchonly";
+    static final String GIT_FETCH_FRESHNESS = "git.fetch.freshness";
+    static final String GIT_TAG_PATTERN = "git.tag.pattern";
+    static final String GIT_KEYINDEX = "git.keyindex";
+    static final String GIT_FIRSTPARENT = "git.firstparent";
+    static final String GIT_FIRSTPARENT_MERGES = "git.firstparent.merges";
     static final String GIT_URL = "git.url";
     static final String GIT_USERNAME = "git.username";
     static final String GIT_PASSWORD = "git.password";
@@ -31,6 +38,18 @@ public class Configuration {
     static final String JIRA_USERNAME = "jira.username";
     static final String JIRA_PASSWORD = "jira.password";
     static final String JIRA_ISSUEPATTERN = "jira.issuepattern";
+    static final String JIRA_PROJECTKEYS = "jira.projectkeys";
+    static final String JIRA_FETCH_THREADS = "jira.fetch.threads";
+    static final String JIRA_FETCH_INFLIGHT = "jira.fetch.inflight";
+    static final String JIRA_SEARCH_CHUNKSIZE = "jira.search.chunksize";
+    static final String JIRA_SEARCH_FIELDS = "jira.search.fields";
+    static final String JIRA_CACHE_DIRECTORY = "jira.cache.directory";
+    static final String JIRA_CACHE_MAXAGE = "jira.cache.maxage";
+    static final String JIRA_CACHE_MAXSIZE = "jira.cache.maxsize";
+    static final String JIRA_MEMORYCACHE_SIZE = "jira.memorycache.size";
+    static final String JIRA_MEMORYCACHE_TTL = "jira.memorycache.ttl";
+    static final String JIRA_CONNECTIONS_MAX = "jira.connections.max";
+    static final String JIRA_CONNECTIONS_IDLE = "jira.connections.idle";
     static final String ISSUE_FILTERBY_COMPONENT = "issue.filterby.component";
     static final String ISSUE_FILTERBY_TYPE = "issue.filterby.type";
     static final String ISSUE_FILTERBY_LABEL = "issue.filterby.label";
@@ -39,6 +58,7 @@ public class Configuration {
     static final String ISSUE_SORT_PRIORITY = "issue.sort.priority";
     static final String REPORT_DIRECTORY = "report.directory";
     static final String REPORT_TEMPLATE = "report.template";
+    static final String REPORT_METRICS = "report.metrics";
 
     private Properties properties;
 
@@ -73,6 +93,34 @@ public class Configuration {
         return properties.getProperty(GIT_BRANCH);
     }
 
+    public boolean isGitBare() {
+        return Boolean.parseBoolean(properties.getProperty(GIT_BARE));
+    }
+
+    public boolean isGitFetchOnly() {
+        return Boolean.parseBoolean(properties.getProperty(GIT_FETCHONLY));
+    }
+
+    public int getGitFetchFreshness() {
+        return getInt(GIT_FETCH_FRESHNESS, 0);
+    }
+
+    public boolean isGitKeyIndex() {
+        return Boolean.parseBoolean(properties.getProperty(GIT_KEYINDEX));
+    }
+
+    public boolean isGitFirstParent() {
+        return Boolean.parseBoolean(properties.getProperty(GIT_FIRSTPARENT));
+    }
+
+    public boolean isGitFirstParentMerges() {
+        return Boolean.parseBoolean(properties.getProperty(GIT_FIRSTPARENT_MERGES, "true"));
+    }
+
+    public String getGitTagPattern() {
+        return properties.getProperty(GIT_TAG_PATTERN);
+    }
+
     public String getGitUrl() {
         return properties.getProperty(GIT_URL);
     }
@@ -113,6 +161,57 @@ public class Configuration {
         return properties.getProperty(JIRA_ISSUEPATTERN);
     }
 
+    public String getJiraProjectKeys() {
+        return properties.getProperty(JIRA_PROJECTKEYS);
+    }
+
+    public int getJiraFetchThreads() {
+        return getInt(JIRA_FETCH_THREADS, 1);
+    }
+
+    public int getJiraFetchInFlight() {
+        return getInt(JIRA_FETCH_INFLIGHT, 2 * getJiraFetchThreads());
+    }
+
+    public int getJiraSearchChunkSize() {
+        return getInt(JIRA_SEARCH_CHUNKSIZE, 0);
+    }
+
+    public String getJiraSearchFields() {
+        return properties.getProperty(JIRA_SEARCH_FIELDS);
+    }
+
+    public String getJiraCacheDirectory() {
+        return properties.getProperty(JIRA_CACHE_DIRECTORY);
+    }
+
+    /**
+     * @return hours after which not used cached issue is removed
+     */
+    public int getJiraCacheMaxAge() {
+        return getInt(JIRA_CACHE_MAXAGE, 24 * 30);
+    }
+
+    public int getJiraCacheMaxSize() {
+        return getInt(JIRA_CACHE_MAXSIZE, 10000);
+    }
+
+    public int getJiraMemoryCacheSize() {
+        return getInt(JIRA_MEMORYCACHE_SIZE, 0);
+    }
+
+    public int getJiraMemoryCacheTtl() {
+        return getInt(JIRA_MEMORYCACHE_TTL, 10);
+    }
+
+    public int getJiraConnectionsMax() {
+        return getInt(JIRA_CONNECTIONS_MAX, Math.max(2, getJiraFetchThreads()));
+    }
+
+    public int getJiraConnectionsIdle() {
+        return getInt(JIRA_CONNECTIONS_IDLE, 60);
+    }
+
     public String getIssueFilterByComponent() {
         return properties.getProperty(ISSUE_FILTERBY_COMPONENT);
     }
@@ -145,6 +244,15 @@ public class Configuration {
         return properties.getProperty(REPORT_TEMPLATE);
     }
 
+    public boolean isReportMetrics() {
+        return Boolean.parseBoolean(properties.getProperty(REPORT_METRICS));
+    }
+
+    private int getInt(final String key, final int defaultValue) {
+        String value = properties.getProperty(key);
+        return isNotEmpty(value) ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder("Configuration[");
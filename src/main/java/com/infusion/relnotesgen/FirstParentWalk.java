@@ -0,0 +1,115 @@
+package com.infusion.relnotesgen;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.eclipse.jgit.errors.StopWalkException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+
+/**
+ * Iterates over first parent line of history from start commit, commits of merged branches are never parsed. Line
+ * ends at earliest commit (inclusive) or, when earliest commit isn't on it, at first commit of first parent line of
+ * earliest commit's parent, that is where branch of earliest commit was forked. Line of earliest commit is followed
+ * only as far as commit times of it are not older than visited commit, so commit times skewed into the past can let
+ * the walk go past that point.
+ * <p>
+ * Commits not included by filter are skipped, walk ends when filter throws {@link StopWalkException}.
+ *
+ * @author trojek
+ *
+ */
+class FirstParentWalk implements Iterable<RevCommit> {
+
+    private final RevWalk walk;
+    private final RevCommit start;
+    private final RevCommit earliest;
+    private final RevFilter filter;
+
+    /**
+     * @param earliest the last commit of walk, null to walk till beginning of history
+     */
+    FirstParentWalk(final RevWalk walk, final RevCommit start, final RevCommit earliest, final RevFilter filter) {
+        this.walk = walk;
+        this.start = start;
+        this.earliest = earliest;
+        this.filter = filter;
+    }
+
+    @Override
+    public Iterator<RevCommit> iterator() {
+        return new Iterator<RevCommit>() {
+
+            private RevCommit current = start;
+            private RevCommit boundary = earliest != null && earliest.getParentCount() > 0 ? earliest.getParent(0) : null;
+            private final Set<RevCommit> boundaryCommits = new HashSet<>();
+            private RevCommit next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = advance();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public RevCommit next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                RevCommit commit = next;
+                next = null;
+                return commit;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            private RevCommit advance() throws IOException {
+                while (current != null) {
+                    RevCommit commit = current;
+                    walk.parseHeaders(commit);
+                    if (isBoundary(commit)) {
+                        current = null;
+                        return null;
+                    }
+                    current = !commit.equals(earliest) && commit.getParentCount() > 0 ? commit.getParent(0) : null;
+                    try {
+                        if (filter.include(walk, commit)) {
+                            return commit;
+                        }
+                    } catch (StopWalkException e) {
+                        current = null;
+                    }
+                }
+                return null;
+            }
+
+            /**
+             * Follows line of earliest commit's parent down to commit time of given commit.
+             */
+            private boolean isBoundary(final RevCommit commit) throws IOException {
+                while (boundary != null) {
+                    walk.parseHeaders(boundary);
+                    if (boundary.getCommitTime() < commit.getCommitTime()) {
+                        break;
+                    }
+                    boundaryCommits.add(boundary);
+                    boundary = boundary.getParentCount() > 0 ? boundary.getParent(0) : null;
+                }
+                return boundaryCommits.contains(commit);
+            }
+        };
+    }
+}
@@ -3,27 +3,36 @@ package com.infusion.relnotesgen;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import java.io.File;
-import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.PullResult;
+import org.eclipse.jgit.api.PushCommand;
 import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.api.errors.CanceledException;
 import org.eclipse.jgit.api.errors.CheckoutConflictException;
@@ -37,21 +46,39 @@ import org.eclipse.jgit.api.errors.RefAlreadyExistsException;
 import org.eclipse.jgit.api.errors.RefNotFoundException;
 import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.api.errors.WrongRepositoryStateException;
-import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.errors.NoWorkTreeException;
-import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.ProgressMonitor;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.AndRevFilter;
+import org.eclipse.jgit.revwalk.filter.CommitTimeRevFilter;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.RawParseUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.xml.sax.SAXException;
 
 /**
  * @author trojek
@@ -62,9 +89,14 @@ public class GitFacade implements SCMFacade {
     private static final Logger logger = LoggerFactory.getLogger(Configuration.LOGGER_NAME);
     private static final String RELEASES_DIR = "releases";
     private static final String DEFAULT_VERSION = "1.0";
+    private static final String POM_XML = "pom.xml";
+    private static final String FETCH_MARKER = "relnotesgen-lastfetch";
 
     private Git git;
     private Configuration configuration;
+    private TagIndex tagIndex;
+    private long syncedObjects;
+    private long syncedBytes;
 
     public GitFacade(final Configuration configuration) {
         logger.info("Reading git repository under {}", configuration.getGitDirectory());
@@ -74,9 +106,14 @@ public class GitFacade implements SCMFacade {
             if (gitRepo.exists() && searchGit(gitRepo)) {
                 logger.info("Found git repository under {}", configuration.getGitDirectory());
 
-                pull();
-                checkout();
-                pull();
+                if (isWithoutWorkingTree()) {
+                    fetch();
+                } else {
+                    pull();
+                    checkout();
+                    pull();
+                    syncedBytes = FileUtils.sizeOfDirectory(git.getRepository().getDirectory());
+                }
 
             } else {
                 logger.info("No git repository under {}", configuration.getGitDirectory());
@@ -101,7 +138,9 @@ public class GitFacade implements SCMFacade {
             InvalidConfigurationException, DetachedHeadException, InvalidRemoteException, CanceledException,
             RefNotFoundException, NoHeadException, TransportException {
         logger.info("Performing pull...");
-        PullResult result = git.pull().setCredentialsProvider(credentials()).call();
+        TransferMonitor monitor = new TransferMonitor();
+        PullResult result = git.pull().setCredentialsProvider(credentials()).setProgressMonitor(monitor).call();
+        syncedObjects += monitor.getReceivedObjects();
         if(result.isSuccessful()) {
             logger.info("Pull successfull");
         } else {
@@ -110,30 +149,132 @@ public class GitFacade implements SCMFacade {
         }
     }
 
+    /**
+     * Fetches only configured branch and tags and fast-forwards local branch to fetched one, working tree is not
+     * touched. When repository was fetched within {@link Configuration#getGitFetchFreshness()} seconds network is not
+     * used at all.
+     */
+    private void fetch() throws GitAPIException, IOException {
+        Repository repository = git.getRepository();
+        File fetchMarker = new File(repository.getDirectory(), FETCH_MARKER);
+        long sinceLastFetch = System.currentTimeMillis() - fetchMarker.lastModified();
+        if (fetchMarker.exists() && sinceLastFetch < TimeUnit.SECONDS.toMillis(configuration.getGitFetchFreshness())) {
+            logger.info("Repository was fetched {} seconds ago, skipping fetch", TimeUnit.MILLISECONDS.toSeconds(sinceLastFetch));
+            return;
+        }
+
+        String branch = branchRef().substring(Constants.R_HEADS.length());
+        String trackingRef = trackingRef(branch);
+        logger.info("Fetching branch {} and tags...", branch);
+        long startTime = System.currentTimeMillis();
+        TransferMonitor monitor = new TransferMonitor();
+        FetchResult result = git.fetch()
+                .setCredentialsProvider(credentials())
+                .setRefSpecs(new RefSpec("+" + Constants.R_HEADS + branch + ":" + trackingRef))
+                .setTagOpt(TagOpt.FETCH_TAGS)
+                .setProgressMonitor(monitor)
+                .call();
+        syncedObjects = monitor.getReceivedObjects();
+        syncedBytes = FileUtils.sizeOfDirectory(repository.getDirectory());
+        logger.info("Fetch is done. It took {} milis, {} refs updated, repository takes {} bytes on disk, transferred: {}",
+                System.currentTimeMillis() - startTime, result.getTrackingRefUpdates().size(), syncedBytes, monitor);
+
+        fastForward(Constants.R_HEADS + branch, repository.resolve(trackingRef));
+        FileUtils.touch(fetchMarker);
+    }
+
+    private String trackingRef(final String branch) {
+        return Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + branch;
+    }
+
+    private void fastForward(final String ref, final ObjectId target) throws IOException {
+        if (target == null) {
+            logger.warn("Branch {} wasn't fetched, using local one", ref);
+            return;
+        }
+        RevWalk walk = new RevWalk(git.getRepository());
+        try {
+            RefUpdate update = git.getRepository().updateRef(ref);
+            update.setNewObjectId(target);
+            update.setRefLogMessage("fetch: fast-forward", false);
+            RefUpdate.Result result = update.update(walk);
+            if (result == RefUpdate.Result.REJECTED) {
+                logger.warn("Local branch {} has diverged from remote one, it's not updated", ref);
+            } else {
+                logger.info("Branch {} updated to {}, result: {}", ref, target.getName(), result);
+            }
+        } finally {
+            walk.release();
+        }
+    }
+
+    /**
+     * In bare repository or when repository is only fetched working tree doesn't reflect configured branch
+     * so everything is read from and written to object database.
+     */
+    private boolean isWithoutWorkingTree() {
+        return git.getRepository().isBare() || configuration.isGitFetchOnly();
+    }
+
     private CredentialsProvider credentials() {
         return new UsernamePasswordCredentialsProvider(configuration.getGitUsername(), configuration.getGitPassword());
     }
 
+    /**
+     * Only configured branch is cloned together with tags pointing into its history. Repository which will be only
+     * fetched doesn't need working tree so checkout is skipped as well.
+     */
     private void cloneRepo() {
-        logger.info("Cloning git repository url: {}, user: {}, password: {}",
-                configuration.getGitUrl(), configuration.getGitUsername(), StringUtils.abbreviate(configuration.getGitPassword(), 6));
+        logger.info("Cloning git repository url: {}, user: {}, password: {}, bare: {}", configuration.getGitUrl(),
+                configuration.getGitUsername(), StringUtils.abbreviate(configuration.getGitPassword(), 6), configuration.isGitBare());
 
         long startTime = System.currentTimeMillis();
 
         final File localPath = new File(configuration.getGitDirectory());
+        TransferMonitor monitor = new TransferMonitor();
         try {
-            git = Git.cloneRepository()
+            CloneCommand clone = Git.cloneRepository()
                 .setURI(configuration.getGitUrl())
                 .setDirectory(localPath)
                 .setCredentialsProvider(credentials())
                 .setBranch(configuration.getGitBranch())
                 .setCloneAllBranches(false)
-                .call();
+                .setBare(configuration.isGitBare())
+                .setNoCheckout(configuration.isGitFetchOnly())
+                .setProgressMonitor(monitor);
+            if (isNotBlank(configuration.getGitBranch())) {
+                clone.setBranchesToClone(Collections.singleton(Constants.R_HEADS + configuration.getGitBranch()));
+            }
+            git = clone.call();
+            if (configuration.isGitFetchOnly() && !configuration.isGitBare()) {
+                //without checkout clone doesn't create local branch, it's created the same way fetch updates it
+                String branch = branchRef();
+                fastForward(branch, git.getRepository().resolve(trackingRef(branch.substring(Constants.R_HEADS.length()))));
+            }
+            FileUtils.touch(new File(git.getRepository().getDirectory(), FETCH_MARKER));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
 
-        logger.info("Clone is done. It took {} milis.", System.currentTimeMillis() - startTime);
+        syncedObjects = monitor.getReceivedObjects();
+        syncedBytes = FileUtils.sizeOfDirectory(localPath);
+        logger.info("Clone is done. It took {} milis, repository takes {} bytes on disk, transferred: {}",
+                System.currentTimeMillis() - startTime, syncedBytes, monitor);
+    }
+
+    /**
+     * @return number of objects received by clone, fetch or pulls done when facade was created, 0 when nothing was
+     *         received or fetch was skipped
+     */
+    public long getSyncedObjects() {
+        return syncedObjects;
+    }
+
+    /**
+     * @return bytes synced repository takes on disk, 0 when fetch was skipped
+     */
+    public long getSyncedBytes() {
+        return syncedBytes;
     }
 
     private boolean searchGit(final File gitRepo) throws IOException {
@@ -152,166 +293,507 @@ public class GitFacade implements SCMFacade {
 
     @Override
     public Response readByCommit(final String commitId1, final String commitId2) {
+        Set<String> messages = new HashSet<String>();
+        String version = readByCommit(commitId1, commitId2, collect(messages));
+        return new Response(messages, version);
+    }
+
+    @Override
+    public String readByCommit(final String commitId1, final String commitId2, final MessageConsumer consumer) {
+        RevWalk walk = new RevWalk(git.getRepository());
         try {
-            Iterable<RevCommit> log = git.log().call();
-
-            Set<String> messages = new HashSet<String>();
-            RevCommit latestCommit = null;
-            for (RevCommit commit : log) {
-                if (!messages.isEmpty() || (commitId1 == null || commitId2 == null)) {
-                    if(latestCommit == null) {
-                        latestCommit = commit;
-                    }
-                    messages.add(commit.getFullMessage());
-                }
+            RevCommit[] range = findRange(walk, commitId1, commitId2);
+            readMessages(walk, commitsOfRange(walk, range[0], range[1]), consumer);
 
-                String commitId = commit.getId().getName();
-                if (commitId.equals(commitId1) || commitId.equals(commitId2)) {
-                    if (!messages.isEmpty() || (commitId1 == null || commitId2 == null)) {
-                        break;
-                    }
+            return getVersion(range[0]);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            walk.release();
+        }
+    }
 
-                    if(latestCommit == null) {
-                        latestCommit = commit;
-                    }
-                    messages.add(commit.getFullMessage());
+    @Override
+    public Response readByDate(final Date since, final Date until) {
+        Set<String> messages = new HashSet<String>();
+        String version = readByDate(since, until, collect(messages));
+        return new Response(messages, version);
+    }
 
-                    if(commitId1.equals(commitId2)) {
-                        break;
-                    }
-                }
-            }
-            logger.info("Found {} commit messages.", messages.size());
-            if(messages.size() == 0) {
-                throw new RuntimeException("No commit were found for given commit ids " + commitId1 + ", " + commitId2 + ". Maybe branch is badly chosen.");
+    /**
+     * Commits are walked from head of branch from the newest to the oldest by commit time, walk stops at first commit
+     * older than since so older history is never parsed. Commit of branch merged with commit time earlier than since
+     * (e.g. rebased long ago) stops the walk as well. With first parent walk only first parent line of branch is walked.
+     */
+    @Override
+    public String readByDate(final Date since, final Date until, final MessageConsumer consumer) {
+        RevWalk walk = new RevWalk(git.getRepository());
+        try {
+            RevCommit head = walk.parseCommit(resolveBranchHead());
+            Iterable<RevCommit> commits = walk;
+            if (configuration.isGitFirstParent()) {
+                commits = new FirstParentWalk(walk, head, null, AndRevFilter.create(timeFilter(since, until), mergeFilter()));
+            } else {
+                walk.markStart(head);
+                walk.sort(RevSort.COMMIT_TIME_DESC);
+                walk.setRevFilter(timeFilter(since, until));
             }
+            logger.info("Reading commits committed from '{}' to '{}'", since == null ? "beginning of history" : since,
+                    until == null ? "head of branch" : until);
 
-            return new Response(messages, getVersion(latestCommit));
-        } catch (GitAPIException e) {
+            RevCommit latestCommit = readMessages(walk, commits, consumer);
+            if (latestCommit == null) {
+                throw new RuntimeException("No commit were found between " + since + " and " + until + ". Maybe branch is badly chosen.");
+            }
+            return getVersion(latestCommit);
+        } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            walk.release();
         }
     }
 
-    private String getVersion(final RevCommit commit) {
-        logger.info("Searching for version in commit '{}'", commit.getFullMessage());
-        try {
-            logger.info("Checkout to commit '{}'", commit.getId().getName());
-            git.checkout().setName(commit.getId().getName()).call();
+    /**
+     * After filter stops walk sorted by commit time at first commit older than since. Between filter only skips such
+     * commits so both bounds are checked by after and before filters.
+     */
+    private RevFilter timeFilter(final Date since, final Date until) {
+        if (since != null && until != null) {
+            return AndRevFilter.create(CommitTimeRevFilter.after(since), CommitTimeRevFilter.before(until));
+        } else if (since != null) {
+            return CommitTimeRevFilter.after(since);
+        } else if (until != null) {
+            return CommitTimeRevFilter.before(until);
+        }
+        return RevFilter.ALL;
+    }
 
-            File pomXmlParent = git.getRepository().getDirectory().getParentFile();
-            logger.info("Searching for pom.xml in directory '{}'", pomXmlParent.getAbsolutePath());
+    /**
+     * @return filter skipping merge commits when their messages shouldn't be read with first parent walk
+     */
+    private RevFilter mergeFilter() {
+        return configuration.isGitFirstParentMerges() ? RevFilter.ALL : RevFilter.NO_MERGES;
+    }
 
-            File[] pomXmls = pomXmlParent.listFiles(new FilenameFilter() {
+    /**
+     * Passes messages of all commits of prepared walk to consumer, keys are passed instead when consumer can find them
+     * in raw messages.
+     *
+     * @param commits given walk or commits parsed by it
+     * @return first commit of walk or null when walk is empty
+     */
+    private RevCommit readMessages(final RevWalk walk, final Iterable<RevCommit> commits, final MessageConsumer consumer)
+            throws IOException {
+        final ObjectReader reader = walk.getObjectReader();
+        final KeyConsumer keyConsumer = keyConsumer(consumer);
+        if (keyConsumer != null) {
+            final CommitKeyIndex keyIndex = configuration.isGitKeyIndex()
+                    ? CommitKeyIndex.load(git.getRepository().getDirectory(), keyConsumer.signature()) : null;
+            CommitVisitor visitor = visitCommits(walk, commits, new CommitVisitor() {
 
                 @Override
-                public boolean accept(final File dir, final String name) {
-                    return "pom.xml".equals(name);
+                void read(final RevCommit commit) throws IOException {
+                    Set<String> keys = keyIndex != null ? keyIndex.get(commit) : null;
+                    if (keys == null) {
+                        keys = findKeys(reader, commit, keyConsumer);
+                        if (keyIndex != null) {
+                            keyIndex.put(commit, keys);
+                        }
+                    }
+                    keyConsumer.consumeKeys(keys);
                 }
             });
+            if (keyIndex != null) {
+                keyIndex.store();
+            }
+            logger.info("Found {} commits, messages of {} of them scanned for keys, keys of the rest taken from index.",
+                    visitor.count, keyIndex != null ? keyIndex.misses() : visitor.count);
+            return visitor.first;
+        }
 
-            if (pomXmls.length == 0) {
-                logger.warn("Coulnd't find pom.xml file using default version {}", DEFAULT_VERSION);
-                return DEFAULT_VERSION;
+        CommitVisitor visitor = visitCommits(walk, commits, new CommitVisitor() {
+
+            @Override
+            void read(final RevCommit commit) throws IOException {
+                consumer.consume(readFullMessage(reader, commit));
             }
+        });
+        logger.info("Found {} commit messages.", visitor.count);
+        return visitor.first;
+    }
 
-            String version = getVersion(pomXmls[0]);
-            logger.info("Found version {} in pom.xml {}", version, pomXmls[0].getAbsolutePath());
-            return version;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        } finally {
-            try {
-                checkout();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+    /**
+     * Commits of walk are visited by its filter while walk still has their bodies and then rejected, so every commit
+     * is inflated only once and walk disposes its body right after it's visited, memory doesn't grow with number of
+     * commits. Walk itself produces no commits. First parent walk parses commits without bodies so visitor loads body
+     * of every commit again.
+     *
+     * @return given visitor
+     */
+    private CommitVisitor visitCommits(final RevWalk walk, final Iterable<RevCommit> commits, final CommitVisitor visitor)
+            throws IOException {
+        if (commits != walk) {
+            walk.setRetainBody(false);
+            for (RevCommit commit : commits) {
+                visitor.visit(commit);
+            }
+            return visitor;
+        }
+
+        final RevFilter filter = walk.getRevFilter();
+        walk.setRetainBody(true);
+        walk.setRevFilter(new RevFilter() {
+
+            @Override
+            public boolean include(final RevWalk walker, final RevCommit commit) throws IOException {
+                if (filter.include(walker, commit)) {
+                    visitor.visit(commit);
+                }
+                return false;
             }
+
+            @Override
+            public boolean requiresCommitBody() {
+                return true;
+            }
+
+            @Override
+            public RevFilter clone() {
+                return this;
+            }
+        });
+        walk.next();
+        return visitor;
+    }
+
+    /**
+     * @return consumer as key consumer or null when it can't find keys separately
+     */
+    private KeyConsumer keyConsumer(final MessageConsumer consumer) {
+        if (consumer instanceof KeyConsumer && ((KeyConsumer) consumer).signature() != null) {
+            return (KeyConsumer) consumer;
         }
+        return null;
     }
 
-    private String getVersion(final File pomXml)
-            throws ParserConfigurationException, SAXException, IOException, XPathExpressionException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(pomXml);
-        XPathFactory xPathfactory = XPathFactory.newInstance();
-        XPath xpath = xPathfactory.newXPath();
-        XPathExpression expr = xpath.compile("/project/version/text()");
-        return expr.evaluate(doc);
+    /**
+     * Decodes message the same way as {@link RevCommit#getFullMessage()}.
+     */
+    private String readFullMessage(final ObjectReader reader, final RevCommit commit) throws IOException {
+        byte[] raw = rawCommit(reader, commit);
+        int messageStart = RawParseUtils.commitMessage(raw, 0);
+        if (messageStart < 0) {
+            return "";
+        }
+        return RawParseUtils.decode(encoding(raw), raw, messageStart, raw.length);
     }
 
-    @Override
-    public Response readByTag(final String tag1, final String tag2) {
+    /**
+     * Passes raw message to consumer without decoding it, headers of commit are skipped.
+     */
+    private Set<String> findKeys(final ObjectReader reader, final RevCommit commit, final KeyConsumer consumer) throws IOException {
+        byte[] raw = rawCommit(reader, commit);
+        int messageStart = RawParseUtils.commitMessage(raw, 0);
+        if (messageStart < 0) {
+            return Collections.emptySet();
+        }
+        return consumer.findKeys(raw, messageStart, encoding(raw));
+    }
+
+    /**
+     * @return body kept by walk which parsed commit, commit object is loaded only when walk didn't keep it
+     */
+    private byte[] rawCommit(final ObjectReader reader, final RevCommit commit) throws IOException {
+        byte[] raw = commit.getRawBuffer();
+        return raw != null ? raw : reader.open(commit, Constants.OBJ_COMMIT).getCachedBytes();
+    }
+
+    private Charset encoding(final byte[] raw) {
         try {
-            Iterable<Ref> tags = git.tagList().call();
+            return RawParseUtils.parseEncoding(raw);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return Constants.CHARSET;
+        }
+    }
 
-            String commitId1 = null;
-            String commitId2 = null;
+    private MessageConsumer collect(final Set<String> messages) {
+        return new MessageConsumer() {
 
-            for (Ref tag : tags) {
-                if(isNotBlank(tag1) && tag.getName().endsWith(tag1)) {
-                    commitId1 = retrieveCommitIdFromTag(tag);
-                    logger.info("Found tag '{}' using commit id '{}'.", tag.getName(), commitId1);
-                }
-                if(isNotBlank(tag2) && tag.getName().endsWith(tag2)) {
-                    commitId2 = retrieveCommitIdFromTag(tag);
-                    logger.info("Found tag '{}' using commit id '{}'.", tag.getName(), commitId2);
+            @Override
+            public void consume(final String message) {
+                messages.add(message);
+            }
+        };
+    }
+
+    /**
+     * Finds range of commits between given commit ids (both inclusive), that is commits reachable from the newer one
+     * but not from parents of the older one. When one of the ids is not given HEAD of branch is used instead of it,
+     * when none is given whole history is in range.
+     *
+     * @return latest and earliest commit of the range, earliest is null when range starts at beginning of history
+     */
+    private RevCommit[] findRange(final RevWalk walk, final String commitId1, final String commitId2) throws IOException {
+        RevCommit head = walk.parseCommit(resolveBranchHead());
+        RevCommit commit1 = parseCommit(walk, commitId1);
+        RevCommit commit2 = parseCommit(walk, commitId2);
+        if (configuration.isGitFirstParent()) {
+            RevCommit[] range = findOnFirstParentLine(walk, head, commit1, commit2);
+            if (range != null) {
+                return range;
+            }
+        }
+
+        RevCommit latest = head;
+        RevCommit earliest = null;
+        if (commit1 != null && commit2 != null) {
+            if (walk.isMergedInto(commit1, commit2)) {
+                latest = commit2;
+                earliest = commit1;
+            } else if (walk.isMergedInto(commit2, commit1)) {
+                latest = commit1;
+                earliest = commit2;
+            } else {
+                throw noCommitsFound(commitId1, commitId2);
+            }
+        } else if (commit1 != null || commit2 != null) {
+            earliest = commit1 != null ? commit1 : commit2;
+        }
+
+        if (!walk.isMergedInto(latest, head) || (earliest != null && !walk.isMergedInto(earliest, latest))) {
+            throw noCommitsFound(commitId1, commitId2);
+        }
+        return new RevCommit[] {latest, earliest};
+    }
+
+    /**
+     * Finds given commits on first parent line of branch, which is much cheaper than checking whether they are merged
+     * into each other when many branches were merged.
+     *
+     * @return range as {@link #findRange(RevWalk, String, String)} does or null when any of given commits isn't on
+     *         first parent line of branch
+     */
+    private RevCommit[] findOnFirstParentLine(final RevWalk walk, final RevCommit head, final RevCommit commit1,
+            final RevCommit commit2) {
+        int wanted = (commit1 != null ? 1 : 0) + (commit2 != null && !commit2.equals(commit1) ? 1 : 0);
+        List<RevCommit> found = new ArrayList<>();
+        if (wanted > 0) {
+            for (RevCommit commit : new FirstParentWalk(walk, head, null, RevFilter.ALL)) {
+                if (commit.equals(commit1) || commit.equals(commit2)) {
+                    found.add(commit);
+                    if (found.size() == wanted) {
+                        break;
+                    }
                 }
             }
+        }
+        if (found.size() < wanted) {
+            return null;
+        } else if (commit1 != null && commit2 != null) {
+            return new RevCommit[] {found.get(0), found.get(found.size() - 1)};
+        }
+        return new RevCommit[] {head, found.isEmpty() ? null : found.get(0)};
+    }
 
-            return readByCommit(commitId1, commitId2);
-        } catch (GitAPIException e) {
-            throw new RuntimeException(e);
+    /**
+     * Prepares walk to iterate only over commits of range. With first parent walk commits of merged branches are left
+     * out, range ends at earliest commit or where its branch was forked from first parent line of latest commit.
+     */
+    private Iterable<RevCommit> commitsOfRange(final RevWalk walk, final RevCommit latest, final RevCommit earliest)
+            throws IOException {
+        walk.reset();
+        logger.info("Reading {}commits from '{}' to '{}'", configuration.isGitFirstParent() ? "first parent " : "",
+                latest.getId().getName(), earliest == null ? "beginning of history" : earliest.getId().getName());
+        if (configuration.isGitFirstParent()) {
+            return new FirstParentWalk(walk, latest, earliest, mergeFilter());
         }
+
+        walk.markStart(latest);
+        if (earliest != null) {
+            for (RevCommit parent : earliest.getParents()) {
+                walk.markUninteresting(parent);
+            }
+        }
+        return walk;
     }
 
-    private String retrieveCommitIdFromTag(final Ref tag) {
-        Ref peeledTag = git.getRepository().peel(tag);
-        if(peeledTag.getPeeledObjectId() == null) {
-            //http://dev.eclipse.org/mhonarc/lists/jgit-dev/msg01706.html
-            //when peeled tag is null it means this is 'lighweight' tag and object id points to commit straight forward
-            return peeledTag.getObjectId().getName();
-        } else {
-            return peeledTag.getPeeledObjectId().getName();
+    /**
+     * Without working tree HEAD doesn't have to point to configured branch, there is no checkout which would switch it.
+     */
+    private ObjectId resolveBranchHead() throws IOException {
+        Repository repository = git.getRepository();
+        if (isWithoutWorkingTree() && isNotBlank(configuration.getGitBranch())) {
+            ObjectId branchHead = repository.resolve(Constants.R_HEADS + configuration.getGitBranch());
+            if (branchHead != null) {
+                return branchHead;
+            }
         }
+        return repository.resolve(Constants.HEAD);
     }
 
-    @Override
-    public Response readLatestReleasedVersion() {
+    private RevCommit parseCommit(final RevWalk walk, final String commitId) throws IOException {
+        if (StringUtils.isBlank(commitId)) {
+            return null;
+        }
+        ObjectId objectId = git.getRepository().resolve(commitId);
+        if (objectId == null) {
+            throw noCommitsFound(commitId, null);
+        }
         try {
-            Iterable<Ref> tags = git.tagList().call();
-            final RevWalk walk = new RevWalk(git.getRepository());
-
-            String tag1 = null;
-            String tag2 = null;
-            Date latestDate = new Date(0);
-            for(Ref tag : tags) {
-                Date tagDate = getDateFromTag(walk, tag);
-
-                if(latestDate.before(tagDate)) {
-                    tag2 = tag1;
-                    tag1 = tag.getName();
-                    latestDate = tagDate;
-                }
+            return walk.parseCommit(objectId);
+        } catch (MissingObjectException e) {
+            throw noCommitsFound(commitId, null);
+        }
+    }
+
+    private RuntimeException noCommitsFound(final String commitId1, final String commitId2) {
+        return new RuntimeException("No commit were found for given commit ids " + commitId1 + ", " + commitId2 + ". Maybe branch is badly chosen.");
+    }
+
+    /**
+     * Version is read from pom.xml in root of commit's tree, blob is parsed straight from object database so
+     * working tree is not touched at all.
+     */
+    private String getVersion(final RevCommit commit) {
+        logger.info("Searching for version in commit '{}'", commit.getId().getName());
+        ObjectReader reader = git.getRepository().newObjectReader();
+        try {
+            TreeWalk pomWalk = TreeWalk.forPath(reader, POM_XML, commit.getTree());
+            if (pomWalk == null) {
+                logger.warn("Coulnd't find pom.xml file using default version {}", DEFAULT_VERSION);
+                return DEFAULT_VERSION;
             }
 
-            return readByTag(tag1, tag2);
-        } catch (GitAPIException | IOException e) {
+            try (InputStream pomXml = reader.open(pomWalk.getObjectId(0)).openStream()) {
+                String version = getVersion(pomXml);
+                logger.info("Found version {} in pom.xml of commit '{}'", version, commit.getId().getName());
+                return version;
+            } finally {
+                pomWalk.release();
+            }
+        } catch (IOException | XMLStreamException e) {
             throw new RuntimeException(e);
+        } finally {
+            reader.release();
         }
     }
 
-    private Date getDateFromTag(final RevWalk walk, final Ref tag) throws MissingObjectException, IncorrectObjectTypeException, IOException {
+    /**
+     * Reads pom.xml only until /project/version element is found, versions of parent or dependencies are skipped.
+     *
+     * @return version of project or empty string if pom.xml doesn't define it
+     */
+    static String getVersion(final InputStream pomXml) throws XMLStreamException {
+        XMLStreamReader xml = XMLInputFactory.newInstance().createXMLStreamReader(pomXml);
         try {
-            return walk.parseTag(tag.getObjectId()).getTaggerIdent().getWhen();
-        } catch (IOException e) {
-            //http://dev.eclipse.org/mhonarc/lists/jgit-dev/msg01706.html
-            //when peeled tag is null it means this is 'lighweight' tag and object id points to commit straight forward
-            return walk.parseCommit(tag.getObjectId()).getCommitterIdent().getWhen();
+            int depth = 0;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 1 && !"project".equals(xml.getLocalName())) {
+                        return "";
+                    }
+                    if (depth == 2 && "version".equals(xml.getLocalName())) {
+                        return xml.getElementText();
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+            return "";
+        } finally {
+            xml.close();
         }
     }
 
+    @Override
+    public Response readByTag(final String tag1, final String tag2) {
+        return readByCommit(findCommitIdOfTag(tag1), findCommitIdOfTag(tag2));
+    }
+
+    @Override
+    public String readByTag(final String tag1, final String tag2, final MessageConsumer consumer) {
+        return readByCommit(findCommitIdOfTag(tag1), findCommitIdOfTag(tag2), consumer);
+    }
+
+    private String findCommitIdOfTag(final String tagName) {
+        if (StringUtils.isBlank(tagName)) {
+            return null;
+        }
+        TagIndex.Entry tag = tagIndex().get(tagName);
+        if (tag == null) {
+            logger.warn("Tag '{}' doesn't exist.", tagName);
+            return null;
+        }
+        logger.info("Found tag '{}' using commit id '{}'.", tag.name, tag.commitId.getName());
+        return tag.commitId.getName();
+    }
+
+    private TagIndex tagIndex() {
+        if (tagIndex == null) {
+            try {
+                tagIndex = TagIndex.load(git.getRepository());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return tagIndex;
+    }
+
+    /**
+     * Reads history between two latest tags matching {@link Configuration#getGitTagPattern()}, with only one such tag
+     * history from it till head of branch is read.
+     */
+    @Override
+    public Response readLatestReleasedVersion() {
+        String[] tags = latestReleasedTags();
+        return readByTag(tags[0], tags[1]);
+    }
+
+    @Override
+    public String readLatestReleasedVersion(final MessageConsumer consumer) {
+        String[] tags = latestReleasedTags();
+        return readByTag(tags[0], tags[1], consumer);
+    }
+
+    private String[] latestReleasedTags() {
+        List<TagIndex.Entry> latestTags = tagIndex().latest(2, TagIndex.namePattern(configuration.getGitTagPattern()));
+        String tag1 = latestTags.size() > 0 ? latestTags.get(0).name : null;
+        String tag2 = latestTags.size() > 1 ? latestTags.get(1).name : null;
+        logger.info("Latest released tags are '{}' and '{}'", tag1, tag2);
+        return new String[] {tag1, tag2};
+    }
+
     @Override
     public boolean pushReleaseNotes(final File releaseNotes, final String version) {
+        String commitMessage = buildCommitMessage(version);
+        try {
+            boolean committed = isWithoutWorkingTree()
+                    ? commitToObjectDatabase(releaseNotes, commitMessage)
+                    : commitFromWorkingTree(releaseNotes, commitMessage);
+            if (!committed) {
+                return false;
+            }
+
+            logger.info("Pushing changes to remote...");
+            PushCommand push = git.push().setCredentialsProvider(credentials());
+            if (isWithoutWorkingTree()) {
+                push.add(branchRef());
+            }
+            Iterable<PushResult> pushResults = push.call();
+            logger.info("Push call has ended.");
+            for(PushResult pushResult : pushResults) {
+                logger.info("Push message: {}", pushResult.getMessages());
+            }
+            return true;
+        } catch (GitAPIException | IOException e) {
+            logger.error("Error during pushing release notes", e);
+            return false;
+        }
+    }
+
+    private boolean commitFromWorkingTree(final File releaseNotes, final String commitMessage) throws GitAPIException {
         File notesDirectory = new File(git.getRepository().getDirectory().getParentFile(), RELEASES_DIR);
         boolean directoryCreated = false;
         if(!notesDirectory.exists()) {
@@ -327,43 +809,100 @@ public class GitFacade implements SCMFacade {
         }
 
         logger.info("Pushing release notes {}", releaseNotesInGit.getAbsolutePath());
+        AddCommand addCommand = git.add();
+        if(directoryCreated) {
+            addCommand.addFilepattern(RELEASES_DIR);
+        } else {
+            addCommand.addFilepattern(RELEASES_DIR + "/" + releaseNotes.getName());
+        }
+        addCommand.call();
+
+        Set<String> changes = validateChangesStatusOfReleaseNotes();
+        if(changes == null) {
+            return false;
+        }
+
+        logger.info("Committing file '{}' with message '{}', committer name {}, committer mail {}",
+                changes.iterator().next(), commitMessage, configuration.getGitCommitterName(), configuration.getGitCommitterMail());
+        git.commit()
+                .setCommitter(configuration.getGitCommitterName(), configuration.getGitCommitterMail())
+                .setMessage(commitMessage)
+                .call();
+        return true;
+    }
+
+    /**
+     * Without working tree release notes are written as blob, tree of branch head is copied with that blob put
+     * under releases directory and commit of that tree is created on top of branch head.
+     */
+    private boolean commitToObjectDatabase(final File releaseNotes, final String commitMessage) throws IOException {
+        Repository repository = git.getRepository();
+        final String path = RELEASES_DIR + "/" + releaseNotes.getName();
+        ObjectInserter inserter = repository.newObjectInserter();
+        ObjectReader reader = repository.newObjectReader();
+        RevWalk walk = new RevWalk(reader);
         try {
-            AddCommand addCommand = git.add();
-            if(directoryCreated) {
-                addCommand.addFilepattern(RELEASES_DIR);
-            } else {
-                addCommand.addFilepattern(RELEASES_DIR + "/" + releaseNotes.getName());
-            }
-            addCommand.call();
+            RevCommit head = walk.parseCommit(resolveBranchHead());
+            final ObjectId notesId = inserter.insert(Constants.OBJ_BLOB, Files.readAllBytes(releaseNotes.toPath()));
+
+            DirCache index = DirCache.newInCore();
+            DirCacheBuilder builder = index.builder();
+            builder.addTree(new byte[0], DirCacheEntry.STAGE_0, reader, head.getTree());
+            builder.finish();
+            DirCacheEditor editor = index.editor();
+            editor.add(new DirCacheEditor.PathEdit(path) {
+
+                @Override
+                public void apply(final DirCacheEntry entry) {
+                    entry.setFileMode(FileMode.REGULAR_FILE);
+                    entry.setObjectId(notesId);
+                }
+            });
+            editor.finish();
+            ObjectId treeId = index.writeTree(inserter);
 
-            Set<String> changes = validateChangesStatusOfReleaseNotes();
-            if(changes == null) {
+            if (treeId.equals(head.getTree())) {
+                logger.error("There are no changes to be commited, probably identical release notes has been already generated and pushed to repository.");
                 return false;
             }
 
-            String commitMessage = buildCommitMessage(version);
-            logger.info("Committing file '{}' with message '{}', committer name {}, committer mail {}",
-                    changes.iterator().next(), commitMessage, configuration.getGitCommitterName(), configuration.getGitCommitterMail());
-            git.commit()
-                    .setCommitter(configuration.getGitCommitterName(), configuration.getGitCommitterMail())
-                    .setMessage(commitMessage)
-                    .call();
+            PersonIdent committer = isNotBlank(configuration.getGitCommitterName())
+                    ? new PersonIdent(configuration.getGitCommitterName(), configuration.getGitCommitterMail())
+                    : new PersonIdent(repository);
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(treeId);
+            commit.setParentId(head);
+            commit.setAuthor(committer);
+            commit.setCommitter(committer);
+            commit.setMessage(commitMessage);
+            ObjectId commitId = inserter.insert(commit);
+            inserter.flush();
 
-            logger.info("Pushing changes to remote...");
-            Iterable<PushResult> pushResults = git.push()
-                    .setCredentialsProvider(credentials())
-                    .call();
-            logger.info("Push call has ended.");
-            for(PushResult pushResult : pushResults) {
-                logger.info("Push message: {}", pushResult.getMessages());
+            logger.info("Committing file '{}' with message '{}', committer name {}, committer mail {}",
+                    path, commitMessage, committer.getName(), committer.getEmailAddress());
+            RefUpdate update = repository.updateRef(branchRef());
+            update.setNewObjectId(commitId);
+            update.setExpectedOldObjectId(head);
+            update.setRefLogMessage("commit: " + commitMessage, false);
+            RefUpdate.Result result = update.update(walk);
+            if (result != RefUpdate.Result.FAST_FORWARD && result != RefUpdate.Result.NEW) {
+                logger.error("Couldn't update branch {} with release notes commit, result: {}", branchRef(), result);
+                return false;
             }
             return true;
-        } catch (GitAPIException e) {
-            logger.error("Error during pushing release notes", e);
-            return false;
+        } finally {
+            walk.release();
+            reader.release();
+            inserter.release();
         }
     }
 
+    private String branchRef() throws IOException {
+        return isNotBlank(configuration.getGitBranch())
+                ? Constants.R_HEADS + configuration.getGitBranch()
+                : git.getRepository().getFullBranch();
+    }
+
     private Set<String> validateChangesStatusOfReleaseNotes() throws NoWorkTreeException, GitAPIException {
         Status status = git.status().call();
         Set<String> added = status.getAdded();
@@ -403,4 +942,70 @@ public class GitFacade implements SCMFacade {
     public void close() {
         git.close();
     }
+
+    /**
+     * Remembers amount of work done in every task of transport, e.g. number of received objects.
+     */
+    /**
+     * Reads visited commits, counts them and remembers the first of them.
+     */
+    private abstract static class CommitVisitor {
+
+        RevCommit first;
+        int count;
+
+        void visit(final RevCommit commit) throws IOException {
+            if (first == null) {
+                first = commit;
+            }
+            count++;
+            read(commit);
+        }
+
+        abstract void read(RevCommit commit) throws IOException;
+    }
+
+    private static class TransferMonitor implements ProgressMonitor {
+        private static final String RECEIVING_OBJECTS = "Receiving objects";
+
+        private final Map<String, Integer> completedWork = new LinkedHashMap<>();
+        private String task;
+
+        @Override
+        public void start(final int totalTasks) {
+        }
+
+        @Override
+        public void beginTask(final String title, final int totalWork) {
+            task = title;
+            completedWork.put(task, 0);
+        }
+
+        @Override
+        public void update(final int completed) {
+            if (task != null) {
+                completedWork.put(task, completedWork.get(task) + completed);
+            }
+        }
+
+        @Override
+        public void endTask() {
+            task = null;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        int getReceivedObjects() {
+            Integer received = completedWork.get(RECEIVING_OBJECTS);
+            return received == null ? 0 : received;
+        }
+
+        @Override
+        public String toString() {
+            return completedWork.isEmpty() ? "nothing" : completedWork.toString();
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package com.infusion.relnotesgen;
+
+/**
+ * Snapshot of statistics of in memory issue cache shared by all invocations in one JVM.
+ *
+ * @author trojek
+ *
+ */
+public class IssueCacheStatistics {
+
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    IssueCacheStatistics(final int size, final long hits, final long misses, final long evictions) {
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "IssueCacheStatistics[size=" + size + "|hits=" + hits + "|misses=" + misses + "|evictions=" + evictions + "]";
+    }
+}
@@ -0,0 +1,181 @@
+package com.infusion.relnotesgen;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores json representation of jira issues in directory, one file per issue named by issue key. Next to issue
+ * value of its 'updated' field is stored so cached issue can be validated against jira with cheap search asking only
+ * for that field. Fields which were asked for are stored as well, issue with other fields than currently searched ones
+ * (or all fields) is stale. Entries not used for longer than max age are dropped, when there is more entries than max size
+ * the least recently used ones are removed.
+ *
+ * @author trojek
+ *
+ */
+class JiraIssueCache {
+
+    private final static Logger logger = LoggerFactory.getLogger(Configuration.LOGGER_NAME);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SUFFIX = ".json";
+    private static final String UPDATED = "updated";
+    private static final String FIELDS = "fields";
+    private static final String ISSUE = "issue";
+
+    private final File directory;
+    private final long maxAge;
+    private final int maxSize;
+    private final String fields;
+
+    private int hits;
+    private int misses;
+    private int stale;
+
+    /**
+     * @param fields fields asked for in searches, see {@link JqlIssueSearch#searchFields(String)}
+     */
+    JiraIssueCache(final File directory, final long maxAgeHours, final int maxSize, final String fields) {
+        this.directory = directory;
+        this.fields = fields;
+        this.maxAge = TimeUnit.HOURS.toMillis(maxAgeHours);
+        this.maxSize = maxSize;
+        if (!directory.exists()) {
+            logger.info("Issue cache directory {} doesn't exist, creating it.", directory.getAbsolutePath());
+            directory.mkdirs();
+        }
+    }
+
+    /**
+     * @return cached entries by issue key, issues that aren't cached or have expired are absent
+     */
+    Map<String, Entry> load(final Collection<String> issueKeys) {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (String issueKey : issueKeys) {
+            File file = file(issueKey);
+            if (!file.exists() || isExpired(file)) {
+                continue;
+            }
+            try {
+                JSONObject json = new JSONObject(new String(Files.readAllBytes(file.toPath()), UTF_8));
+                entries.put(issueKey, new Entry(json.getString(UPDATED), json.optString(FIELDS), json.getJSONObject(ISSUE)));
+            } catch (IOException | JSONException e) {
+                logger.warn("Couldn't read cached issue {}, it will be queried again. Cause: {}", issueKey, e.getMessage());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @param issueFields fields which were asked for to get issue
+     */
+    void put(final String issueKey, final JSONObject issueJson, final String issueFields) {
+        try {
+            JSONObject json = new JSONObject();
+            json.put(UPDATED, JqlIssueSearch.updateStamp(issueJson));
+            json.put(FIELDS, issueFields);
+            json.put(ISSUE, issueJson);
+
+            //written to temporary file first so other run never reads half written entry
+            File temp = File.createTempFile("issue", ".tmp", directory);
+            Files.write(temp.toPath(), json.toString().getBytes(UTF_8));
+            Files.move(temp.toPath(), file(issueKey).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | JSONException e) {
+            logger.warn("Couldn't cache issue {}. Cause: {}", issueKey, e.getMessage());
+        }
+    }
+
+    /**
+     * @return true when entry has the same 'updated' field as issue in jira and has fields which are searched now
+     */
+    boolean isCurrent(final Entry entry, final String updateStamp) {
+        return !entry.updated.isEmpty() && entry.updated.equals(updateStamp)
+                && (entry.fields.equals(fields) || entry.fields.equals(JqlIssueSearch.DEFAULT_FIELDS));
+    }
+
+    /**
+     * Cached issue is still valid, its entry is touched so it's evicted as the last one.
+     */
+    void recordHit(final String issueKey) {
+        hits++;
+        file(issueKey).setLastModified(System.currentTimeMillis());
+    }
+
+    void recordMiss() {
+        misses++;
+    }
+
+    void recordStale() {
+        stale++;
+        misses++;
+    }
+
+    void evict() {
+        File[] files = directory.listFiles(new FileFilter() {
+
+            @Override
+            public boolean accept(final File file) {
+                return file.isFile() && file.getName().endsWith(SUFFIX);
+            }
+        });
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+
+            @Override
+            public int compare(final File a, final File b) {
+                return Long.compare(b.lastModified(), a.lastModified());
+            }
+        });
+
+        int evicted = 0;
+        for (int i = 0; i < files.length; i++) {
+            if ((i >= maxSize || isExpired(files[i])) && files[i].delete()) {
+                evicted++;
+            }
+        }
+        logger.info("Evicted {} of {} cached issues", evicted, files.length);
+    }
+
+    void logStatistics() {
+        int requests = hits + misses;
+        logger.info("Issue cache: {} hits, {} misses ({} stale), hit ratio {}%", hits, misses, stale, requests == 0 ? 0 : hits * 100 / requests);
+    }
+
+    private boolean isExpired(final File file) {
+        return System.currentTimeMillis() - file.lastModified() > maxAge;
+    }
+
+    private File file(final String issueKey) {
+        return new File(directory, issueKey.replaceAll("[^A-Za-z0-9_\\-]", "_") + SUFFIX);
+    }
+
+    static class Entry {
+        final String updated;
+        final String fields;
+        final JSONObject issueJson;
+
+        Entry(final String updated, final String fields, final JSONObject issueJson) {
+            this.updated = updated;
+            this.fields = fields;
+            this.issueJson = issueJson;
+        }
+    }
+}
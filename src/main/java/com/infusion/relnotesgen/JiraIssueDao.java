@@ -2,25 +2,40 @@ package com.infusion.relnotesgen;
 
 import static org.apache.commons.lang3.StringUtils.containsIgnoreCase;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
-import java.net.URI;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.atlassian.jira.rest.client.IssueRestClient;
-import com.atlassian.jira.rest.client.JiraRestClient;
 import com.atlassian.jira.rest.client.NullProgressMonitor;
 import com.atlassian.jira.rest.client.RestClientException;
 import com.atlassian.jira.rest.client.domain.BasicComponent;
 import com.atlassian.jira.rest.client.domain.Issue;
-import com.atlassian.jira.rest.client.internal.jersey.JerseyJiraRestClientFactory;
+import com.atlassian.jira.rest.client.internal.jersey.JerseyJiraRestClient;
+import com.atlassian.jira.rest.client.internal.json.IssueJsonParser;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.UniformInterfaceException;
 
 /**
  * @author trojek
@@ -29,69 +44,324 @@ import com.atlassian.jira.rest.client.internal.jersey.JerseyJiraRestClientFactor
 public class JiraIssueDao {
 
     private final static Logger logger = LoggerFactory.getLogger(Configuration.LOGGER_NAME);
+    private static final int NOT_FOUND = 404;
 
+    private JerseyJiraRestClient restClient;
     private IssueRestClient issueRestClient;
     private Configuration configuration;
+    private Client transportClient;
+    private JqlIssueSearch search;
+    private JiraIssueCache cache;
+    private JiraIssueMemoryCache memoryCache;
     private Collection<Filter> filters = new ArrayList<>();
 
     public JiraIssueDao(final Configuration configuration) {
-        logger.info("Creating jira rest client with url {} and user {}", configuration.getJiraUrl(),
-                configuration.getJiraUsername());
+        this.configuration = configuration;
+        prepareFilters();
 
         try {
-            this.configuration = configuration;
-
-            JerseyJiraRestClientFactory factory = new JerseyJiraRestClientFactory();
-            JiraRestClient restClient = factory.createWithBasicHttpAuthentication(new URI(configuration.getJiraUrl()),
-                    configuration.getJiraUsername(), configuration.getJiraPassword());
+            restClient = JiraRestClients.get(configuration);
             issueRestClient = restClient.getIssueClient();
+            transportClient = restClient.getTransportClient();
+
+            if (configuration.getJiraMemoryCacheSize() > 0) {
+                memoryCache = JiraIssueMemoryCache.shared(configuration.getJiraMemoryCacheSize(), configuration.getJiraMemoryCacheTtl());
+            }
+            if (isNotBlank(configuration.getJiraCacheDirectory())) {
+                logger.info("Using issue cache in directory {}", configuration.getJiraCacheDirectory());
+                cache = new JiraIssueCache(new File(configuration.getJiraCacheDirectory()),
+                        configuration.getJiraCacheMaxAge(), configuration.getJiraCacheMaxSize(),
+                        JqlIssueSearch.searchFields(configuration.getJiraSearchFields()));
+            }
+            if (configuration.getJiraSearchChunkSize() > 0 || cache != null) {
+                search = new JqlIssueSearch(transportClient, configuration.getJiraUrl(),
+                        configuration.getJiraSearchChunkSize(), configuration.getJiraSearchFields(), filtersJql());
+            }
         } catch (Exception e) {
+            close();
             throw new RuntimeException(e);
         }
-        prepareFilters();
+    }
+
+    /**
+     * Releases shared jira rest client, dao can't be used afterwards.
+     */
+    public void close() {
+        if (restClient != null) {
+            JiraRestClients.release(restClient);
+            restClient = null;
+        }
     }
 
     public Collection<Issue> findIssues(final Set<String> issueIds) {
+        Collection<Issue> issues = new ArrayList<>();
+        Set<String> notCachedIssueIds = issueIds;
+        if (memoryCache != null) {
+            notCachedIssueIds = findIssuesInMemory(notCachedIssueIds, issues);
+        }
+        if (cache != null && !notCachedIssueIds.isEmpty()) {
+            notCachedIssueIds = findCachedIssues(notCachedIssueIds, issues);
+        }
+
+        if (configuration.getJiraSearchChunkSize() > 0) {
+            issues.addAll(searchIssues(notCachedIssueIds));
+        } else {
+            issues.addAll(fetchIssues(notCachedIssueIds));
+        }
+
+        if (cache != null) {
+            cache.evict();
+            cache.logStatistics();
+        }
+        if (memoryCache != null) {
+            logger.info("In memory issue cache: {}", memoryCache.statistics());
+        }
+        return issues;
+    }
+
+    /**
+     * Issues kept in memory by previous invocations in this JVM are used without asking jira at all.
+     *
+     * @return ids of issues which aren't kept in memory
+     */
+    private Set<String> findIssuesInMemory(final Set<String> issueIds, final Collection<Issue> issues) {
+        Set<String> notCachedIssueIds = new LinkedHashSet<>();
+        for (String issueId : issueIds) {
+            Issue issue = memoryCache.get(configuration.getJiraUrl(), configuration.getJiraUsername(), issueId);
+            if (issue == null) {
+                notCachedIssueIds.add(issueId);
+            } else if (!isFiltered(issue)) {
+                issues.add(issue);
+            }
+        }
+        return notCachedIssueIds;
+    }
+
+    /**
+     * Cached issues are validated with one search asking only for 'updated' field of all of them.
+     *
+     * @return ids of issues which aren't cached or cached version is out of date
+     */
+    private Set<String> findCachedIssues(final Set<String> issueIds, final Collection<Issue> issues) {
+        Map<String, JiraIssueCache.Entry> entries = cache.load(issueIds);
+        Map<String, String> updateStamps = entries.isEmpty()
+                ? Collections.<String, String>emptyMap()
+                : search.findUpdateStamps(entries.keySet());
+
+        Set<String> notCachedIssueIds = new LinkedHashSet<>();
+        for (String issueId : issueIds) {
+            JiraIssueCache.Entry entry = entries.get(issueId);
+            if (entry == null) {
+                cache.recordMiss();
+                notCachedIssueIds.add(issueId);
+            } else if (!cache.isCurrent(entry, updateStamps.get(issueId))) {
+                cache.recordStale();
+                notCachedIssueIds.add(issueId);
+            } else {
+                Issue issue = parse(entry.issueJson);
+                cache.recordHit(issueId);
+                remember(issue);
+                if (!isFiltered(issue)) {
+                    issues.add(issue);
+                }
+            }
+        }
+        return notCachedIssueIds;
+    }
+
+    private Collection<Issue> searchIssues(final Set<String> issueIds) {
+        //filters are applied by jira as part of search, checking them again verifies issues returned by search
+        JqlIssueSearch.Result searchResult = search.findIssues(issueIds);
+        Collection<Issue> issues = new ArrayList<>();
+        for (Issue issue : searchResult.issues.values()) {
+            if (cache != null) {
+                cache.put(issue.getKey(), searchResult.issuesJson.get(issue.getKey()),
+                        JqlIssueSearch.searchFields(configuration.getJiraSearchFields()));
+            }
+            remember(issue);
+            if (!isFiltered(issue)) {
+                issues.add(issue);
+            }
+        }
+
+        if (!searchResult.unresolvedKeys.isEmpty()) {
+            logger.info("{} issues weren't resolved by search, quering them one by one", searchResult.unresolvedKeys.size());
+            issues.addAll(fetchIssues(searchResult.unresolvedKeys));
+        }
+
+        return issues;
+    }
+
+    private Collection<Issue> fetchIssues(final Set<String> issueIds) {
+        int threads = configuration.getJiraFetchThreads();
+        if (threads > 1 && issueIds.size() > 1) {
+            return findIssuesConcurrently(issueIds, threads);
+        }
+
+        Collection<Issue> issues = new ArrayList<>();
+        FetchLatency latency = new FetchLatency();
+        NullProgressMonitor pm = new NullProgressMonitor();
+        for (String issueId : issueIds) {
+            Issue issue = fetch(pm, issueId, latency);
+            if (issue != null) {
+                issues.add(issue);
+            }
+        }
+        logger.info("Fetched {} issues, {}", issueIds.size(), latency);
+
+        return issues;
+    }
+
+    /**
+     * Issues are fetched by pool of workers, at most {@link Configuration#getJiraFetchInFlight()} requests are
+     * submitted at once. Result keeps order of given issue ids, same as sequential fetching.
+     */
+    private Collection<Issue> findIssuesConcurrently(final Set<String> issueIds, final int threads) {
+        final int maxInFlight = Math.max(threads, configuration.getJiraFetchInFlight());
+        logger.info("Fetching {} issues with {} threads and at most {} requests in flight", issueIds.size(), threads, maxInFlight);
+
+        final FetchLatency latency = new FetchLatency();
+        final NullProgressMonitor pm = new NullProgressMonitor();
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
         try {
-            Collection<Issue> issues = new ArrayList<>();
-            NullProgressMonitor pm = new NullProgressMonitor();
-            for (String issueId : issueIds) {
-                logger.info("Quering JIRA for issue {}", issueId);
-                try {
-                    Issue issue = getAndFilter(pm, issueId);
-                    if (issue != null) {
-                        issues.add(issue);
-                    }
-                } catch (RestClientException e) {
-                    String message = ExceptionUtils.getRootCauseMessage(e);
-                    if (message.contains("response status: 404")) {
-                        logger.warn(StringUtils.repeat('=', 60));
-                        logger.warn("--- 404 status returned for issue {}.", issueId);
-                        logger.warn("--- Bad pattern definition or issue has been deleted.");
-                        logger.warn(StringUtils.repeat('=', 60));
-                    } else {
-                        throw e;
+            List<Future<Issue>> fetches = new ArrayList<>();
+            for (final String issueId : issueIds) {
+                inFlight.acquire();
+                fetches.add(executor.submit(new Callable<Issue>() {
+
+                    @Override
+                    public Issue call() {
+                        try {
+                            return fetch(pm, issueId, latency);
+                        } finally {
+                            inFlight.release();
+                        }
                     }
+                }));
+            }
+
+            Collection<Issue> issues = new ArrayList<>();
+            for (Future<Issue> fetch : fetches) {
+                Issue issue = fetch.get();
+                if (issue != null) {
+                    issues.add(issue);
                 }
             }
+            logger.info("Fetched {} issues, {}", issueIds.size(), latency);
 
             return issues;
-        } catch (Exception e) {
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Issue fetch(final NullProgressMonitor pm, final String issueId, final FetchLatency latency) {
+        logger.info("Quering JIRA for issue {}", issueId);
+        long startTime = System.currentTimeMillis();
+        try {
+            return getAndFilter(pm, issueId);
+        } catch (RestClientException e) {
+            String message = ExceptionUtils.getRootCauseMessage(e);
+            if (message.contains("response status: 404")) {
+                logNotFound(issueId);
+                return null;
+            } else {
+                throw e;
+            }
+        } catch (UniformInterfaceException e) {
+            if (e.getResponse().getStatus() == NOT_FOUND) {
+                logNotFound(issueId);
+                return null;
+            } else {
+                throw e;
+            }
+        } finally {
+            long time = System.currentTimeMillis() - startTime;
+            latency.record(time);
+            logger.info("Query for issue {} took {} milis.", issueId, time);
         }
     }
 
+    private void logNotFound(final String issueId) {
+        logger.warn(StringUtils.repeat('=', 60));
+        logger.warn("--- 404 status returned for issue {}.", issueId);
+        logger.warn("--- Bad pattern definition or issue has been deleted.");
+        logger.warn(StringUtils.repeat('=', 60));
+    }
+
     private Issue getAndFilter(final NullProgressMonitor pm, final String issueId) {
-        Issue issue = issueRestClient.getIssue(issueId, pm);
+        Issue issue = cache == null ? issueRestClient.getIssue(issueId, pm) : getAndCache(issueId);
+        remember(issue);
+        return isFiltered(issue) ? null : issue;
+    }
+
+    private void remember(final Issue issue) {
+        if (memoryCache != null) {
+            memoryCache.put(configuration.getJiraUrl(), configuration.getJiraUsername(), issue);
+        }
+    }
+
+    /**
+     * Issue is queried the same way as rest client does it but json representation is kept to be cached.
+     */
+    private Issue getAndCache(final String issueId) {
+        String response = transportClient.resource(configuration.getJiraUrl() + "/rest/api/latest/issue/" + issueId)
+                .queryParam("expand", "names,schema")
+                .accept("application/json")
+                .get(String.class);
+        try {
+            JSONObject issueJson = new JSONObject(response);
+            Issue issue = parse(issueJson);
+            //issue queried one by one has all fields
+            cache.put(issue.getKey(), issueJson, JqlIssueSearch.DEFAULT_FIELDS);
+            return issue;
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Issue parse(final JSONObject issueJson) {
+        try {
+            return new IssueJsonParser().parse(issueJson);
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
+    private boolean isFiltered(final Issue issue) {
         for(Filter filter : filters) {
             if(filter.filter(issue)) {
                 logger.info("Filtered issue '{} {}' with filter '{}'", issue.getKey(), issue.getSummary(), filter);
-                return null;
+                return true;
             }
         }
+        return false;
+    }
 
-        return issue;
+    /**
+     * Filters which match exact values are translated to JQL, filters matching part of value (component, label)
+     * can't be expressed in JQL and are applied only after issues are fetched.
+     *
+     * @return JQL clause of all translatable filters or null if there is none
+     */
+    private String filtersJql() {
+        StringBuilder jql = new StringBuilder();
+        for (Filter filter : filters) {
+            String filterJql = filter.toJql();
+            if (filterJql != null) {
+                if (jql.length() > 0) {
+                    jql.append(" AND ");
+                }
+                jql.append(filterJql);
+            }
+        }
+        return jql.length() == 0 ? null : jql.toString();
     }
 
     private void prepareFilters() {
@@ -102,7 +372,7 @@ public class JiraIssueDao {
     }
 
     private void prepareFilterByType() {
-        filters.add(new Filter(configuration.getIssueFilterByType(), new FilterPredicate() {
+        filters.add(new Filter(configuration.getIssueFilterByType(), "issuetype", new FilterPredicate() {
 
             @Override
             public boolean match(final Issue issue, final String type) {
@@ -157,7 +427,7 @@ public class JiraIssueDao {
     }
 
     private void prepareFilterByStatus() {
-        filters.add(new Filter(configuration.getIssueFilterByStatus(), new FilterPredicate() {
+        filters.add(new Filter(configuration.getIssueFilterByStatus(), "status", new FilterPredicate() {
 
             @Override
             public boolean match(final Issue issue, final String status) {
@@ -173,13 +443,26 @@ public class JiraIssueDao {
 
     private class Filter {
         final String[] filters;
+        final String jqlField;
         final FilterPredicate predicate;
 
         public Filter(final String filters, final FilterPredicate predicate) {
+            this(filters, null, predicate);
+        }
+
+        public Filter(final String filters, final String jqlField, final FilterPredicate predicate) {
             this.filters = isBlank(filters) ? null : filters.split(",");
+            this.jqlField = jqlField;
             this.predicate = predicate;
         }
 
+        public String toJql() {
+            if (filters == null || jqlField == null) {
+                return null;
+            }
+            return jqlField + " in " + JqlIssueSearch.valueList(Arrays.asList(filters));
+        }
+
         public boolean filter(final Issue issue) {
             if (filters != null) {
                 for (String filter : filters) {
@@ -201,4 +484,21 @@ public class JiraIssueDao {
     private interface FilterPredicate {
         boolean match(final Issue issue, final String value);
     }
+
+    private static class FetchLatency {
+        private int count;
+        private long total;
+        private long max;
+
+        synchronized void record(final long time) {
+            count++;
+            total += time;
+            max = Math.max(max, time);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "query latency avg " + (count == 0 ? 0 : total / count) + " milis, max " + max + " milis";
+        }
+    }
 }
@@ -1,15 +1,30 @@
 package com.infusion.relnotesgen;
 
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Finds jira issue ids in scm messages with regular expression or, when project keys are given, with
+ * {@link JiraIssueKeyScanner} which doesn't slow down with number of projects like alternation in expression does.
+ * Collections of at least parallel threshold messages are split between threads of fork-join pool, every part is
+ * matched into its own set and sets are merged when parts are joined. Raw messages in encodings compatible with ASCII
+ * are scanned for project keys without decoding them, pattern matches raw message only when it's all ASCII, only
+ * found ids are copied out.
+ *
  * @author trojek
  *
  */
@@ -17,21 +32,80 @@ public class JiraIssueIdMatcher {
 
     private final static Logger logger = LoggerFactory.getLogger(Configuration.LOGGER_NAME);
 
+    /**
+     * Below that many messages splitting them between threads costs more than it saves, see
+     * JiraIssueIdMatcherParallelBenchmark
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 5000;
+    /**
+     * Smallest part of messages matched by single task
+     */
+    private static final int MIN_TASK_SIZE = 256;
+
     private Pattern pattern;
+    private JiraIssueKeyScanner scanner;
+    private String description;
+    private String signature;
+    private int parallelThreshold = 0;
+    private int parallelism = 1;
 
     public JiraIssueIdMatcher(final String pattern) {
-        this.pattern = Pattern.compile(pattern);
+        this(pattern, null);
     }
 
-    public Set<String> findJiraIds(final Collection<String> texts) {
-        logger.info("Searching for jira issue ids with patern '{}'", pattern);
+    /**
+     * @param parallelThreshold collections of at least that many messages are matched in parallel by all available
+     *        processors, 0 means never
+     */
+    public JiraIssueIdMatcher(final String pattern, final String projectKeys, final int parallelThreshold) {
+        this(pattern, projectKeys, parallelThreshold, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelThreshold collections of at least that many messages are matched in parallel, 0 means never
+     * @param parallelism number of threads matching in parallel
+     */
+    public JiraIssueIdMatcher(final String pattern, final String projectKeys, final int parallelThreshold, final int parallelism) {
+        this(pattern, projectKeys);
+        this.parallelThreshold = parallelThreshold;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param projectKeys jira project keys separated by ',', when not blank pattern is ignored and ids are found by
+     *        scanning for these keys followed by '-' and digits
+     */
+    public JiraIssueIdMatcher(final String pattern, final String projectKeys) {
+        if (StringUtils.isNotBlank(projectKeys)) {
+            this.scanner = new JiraIssueKeyScanner(Arrays.asList(projectKeys.split(",")));
+            this.description = "project keys '" + projectKeys + "'";
+            this.signature = "keys:" + projectKeys;
+        } else {
+            this.pattern = Pattern.compile(pattern);
+            this.description = "patern '" + pattern + "'";
+            this.signature = "pattern:" + pattern;
+        }
+    }
 
-        Set<String> jiraIds = new HashSet<String>();
+    public Set<String> findJiraIds(final Collection<String> texts) {
+        logger.info("Searching for jira issue ids with {}", description);
 
-        for (String text : texts) {
-            Matcher matcher = pattern.matcher(text);
-            while (matcher.find()) {
-                jiraIds.add(matcher.group());
+        Set<String> jiraIds;
+        if (parallelThreshold > 0 && texts.size() >= parallelThreshold && parallelism > 1) {
+            //pool lives only while messages are matched so its threads don't outlive the matching
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                logger.info("Splitting {} messages between {} threads", texts.size(), pool.getParallelism());
+                List<String> messages = texts instanceof List ? (List<String>) texts : new ArrayList<>(texts);
+                int taskSize = Math.max(MIN_TASK_SIZE, messages.size() / (4 * pool.getParallelism()));
+                jiraIds = pool.invoke(new MatchingTask(messages, taskSize));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            jiraIds = new HashSet<String>();
+            for (String text : texts) {
+                findJiraIds(text, jiraIds);
             }
         }
 
@@ -40,4 +114,161 @@ public class JiraIssueIdMatcher {
 
         return jiraIds;
     }
+
+    /**
+     * @return consumer of scm messages which adds jira ids found in every message to given set, messages are not kept.
+     *         Ids found in commits can be indexed by scm, index is dropped when pattern or project keys change.
+     */
+    public SCMFacade.KeyConsumer collectJiraIds(final Set<String> jiraIds) {
+        logger.info("Searching for jira issue ids with {}", description);
+        return new SCMFacade.KeyConsumer() {
+
+            @Override
+            public void consume(final String message) {
+                findJiraIds(message, jiraIds);
+            }
+
+            @Override
+            public String signature() {
+                return signature;
+            }
+
+            @Override
+            public Set<String> findKeys(final byte[] raw, final int messageStart, final Charset encoding) {
+                Set<String> keys = new HashSet<String>();
+                findJiraIds(raw, messageStart, encoding, keys);
+                return keys.isEmpty() ? Collections.<String>emptySet() : keys;
+            }
+
+            @Override
+            public void consumeKeys(final Set<String> keys) {
+                jiraIds.addAll(keys);
+            }
+        };
+    }
+
+    private void findJiraIds(final String text, final Set<String> jiraIds) {
+        if (scanner != null) {
+            scanner.scan(text, jiraIds);
+            return;
+        }
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            jiraIds.add(matcher.group());
+        }
+    }
+
+    private void findJiraIds(final byte[] raw, final int messageStart, final Charset encoding, final Set<String> jiraIds) {
+        if (!isAsciiCompatible(encoding)) {
+            findJiraIds(new String(raw, messageStart, raw.length - messageStart, encoding), jiraIds);
+            return;
+        }
+        if (scanner != null) {
+            scanner.scan(raw, messageStart, raw.length, jiraIds);
+            return;
+        }
+        if (!isAscii(raw, messageStart, raw.length)) {
+            //boundaries, lookarounds, '.' or classes would see parts of non ASCII chars instead of decoded chars,
+            //both next to match and where match may be missed, so message is decoded to match it the same way as text
+            findJiraIds(new String(raw, messageStart, raw.length - messageStart, encoding), jiraIds);
+            return;
+        }
+        Matcher matcher = pattern.matcher(new RawChars(raw, messageStart, raw.length));
+        while (matcher.find()) {
+            jiraIds.add(matcher.group());
+        }
+    }
+
+    /**
+     * In these encodings ASCII chars are single bytes which are never part of other chars.
+     */
+    private static boolean isAsciiCompatible(final Charset encoding) {
+        String name = encoding.name();
+        return name.equals("UTF-8") || name.equals("US-ASCII") || name.startsWith("ISO-8859-") || name.startsWith("windows-125");
+    }
+
+    private static boolean isAscii(final byte[] raw, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (raw[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Bytes seen as ISO-8859-1 chars, regex runs on them without decoding whole message to string.
+     */
+    private static class RawChars implements CharSequence {
+
+        private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+        private final byte[] raw;
+        private final int start;
+        private final int end;
+
+        RawChars(final byte[] raw, final int start, final int end) {
+            this.raw = raw;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return (char) (raw[start + index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(final int from, final int to) {
+            return new RawChars(raw, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(raw, start, end - start, ISO_8859_1);
+        }
+    }
+
+    /**
+     * Halves messages until part is small enough to be matched by one thread.
+     */
+    private class MatchingTask extends RecursiveTask<Set<String>> {
+
+        private final List<String> messages;
+        private final int taskSize;
+
+        MatchingTask(final List<String> messages, final int taskSize) {
+            this.messages = messages;
+            this.taskSize = taskSize;
+        }
+
+        @Override
+        protected Set<String> compute() {
+            if (messages.size() <= taskSize) {
+                Set<String> jiraIds = new HashSet<String>();
+                for (String message : messages) {
+                    findJiraIds(message, jiraIds);
+                }
+                return jiraIds;
+            }
+
+            int half = messages.size() / 2;
+            MatchingTask first = new MatchingTask(messages.subList(0, half), taskSize);
+            first.fork();
+            Set<String> secondIds = new MatchingTask(messages.subList(half, messages.size()), taskSize).compute();
+            Set<String> firstIds = first.join();
+            //smaller set is added to bigger one
+            if (firstIds.size() < secondIds.size()) {
+                secondIds.addAll(firstIds);
+                return secondIds;
+            }
+            firstIds.addAll(secondIds);
+            return firstIds;
+        }
+    }
 }
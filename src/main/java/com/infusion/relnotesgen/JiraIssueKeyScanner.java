@@ -0,0 +1,171 @@
+package com.infusion.relnotesgen;
+
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds ids of jira issues of known projects, i.e. project key followed by '-' and digits, the same ones as pattern
+ * (KEY1|KEY2|...)-\d+ would find. All keys are searched at once with Aho-Corasick automaton so text is read char by
+ * char only once whatever the number of projects is and only found ids are copied out of it.
+ *
+ * @author trojek
+ *
+ */
+class JiraIssueKeyScanner {
+
+    /**
+     * Project keys consist of ASCII letters, digits and '_', any other char leads back to initial state
+     */
+    private static final int ALPHABET = 128;
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    /**
+     * transitions[state][char], state 0 is initial one
+     */
+    private final int[][] transitions;
+    /**
+     * Length of the longest project key which ends in state, 0 when no key ends there
+     */
+    private final int[] keyLengths;
+
+    JiraIssueKeyScanner(final Collection<String> projectKeys) {
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        trie.add(newState());
+        lengths.add(0);
+
+        for (String projectKey : projectKeys) {
+            String key = projectKey.trim();
+            if (key.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (char c : key.toCharArray()) {
+                if (c >= ALPHABET || c == '-') {
+                    throw new IllegalArgumentException("Illegal char '" + c + "' in jira project key " + key);
+                }
+                if (trie.get(state)[c] < 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(newState());
+                    lengths.add(0);
+                }
+                state = trie.get(state)[c];
+            }
+            lengths.set(state, key.length());
+        }
+
+        transitions = trie.toArray(new int[trie.size()][]);
+        keyLengths = new int[lengths.size()];
+        for (int i = 0; i < keyLengths.length; i++) {
+            keyLengths[i] = lengths.get(i);
+        }
+        linkFailures();
+    }
+
+    /**
+     * Adds ids found in text to given set.
+     */
+    void scan(final CharSequence text, final Set<String> jiraIds) {
+        int length = text.length();
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            state = c < ALPHABET ? transitions[state][c] : 0;
+
+            int keyLength = keyLengths[state];
+            if (keyLength > 0 && i + 2 < length && text.charAt(i + 1) == '-' && isDigit(text.charAt(i + 2))) {
+                int end = i + 3;
+                while (end < length && isDigit(text.charAt(end))) {
+                    end++;
+                }
+                jiraIds.add(text.subSequence(i + 1 - keyLength, end).toString());
+                //like regex continue after found id
+                i = end - 1;
+                state = 0;
+            }
+        }
+    }
+
+    /**
+     * Adds ids found in bytes from start to end to given set. Bytes have to be in encoding which represents ASCII chars
+     * as single bytes which aren't part of other chars, e.g. UTF-8 or ISO-8859-1, only found ids are decoded.
+     */
+    void scan(final byte[] text, final int start, final int end, final Set<String> jiraIds) {
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            //bytes of non ASCII chars are negative
+            byte c = text[i];
+            state = c >= 0 ? transitions[state][c] : 0;
+
+            int keyLength = keyLengths[state];
+            if (keyLength > 0 && i + 2 < end && text[i + 1] == '-' && isDigit(text[i + 2])) {
+                int idEnd = i + 3;
+                while (idEnd < end && isDigit(text[idEnd])) {
+                    idEnd++;
+                }
+                int idStart = i + 1 - keyLength;
+                jiraIds.add(new String(text, idStart, idEnd - idStart, US_ASCII));
+                i = idEnd - 1;
+                state = 0;
+            }
+        }
+    }
+
+    int states() {
+        return transitions.length;
+    }
+
+    /**
+     * Turns trie into automaton, missing transition of state goes where the same char leads from state of its longest
+     * proper suffix. States are visited breadth first so state of suffix is always complete before it's used.
+     */
+    private void linkFailures() {
+        int[] failures = new int[transitions.length];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = transitions[0][c];
+            if (next < 0) {
+                transitions[0][c] = 0;
+            } else {
+                queue.add(next);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failure = failures[state];
+            if (keyLengths[state] == 0) {
+                keyLengths[state] = keyLengths[failure];
+            }
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[failure][c];
+                } else {
+                    failures[next] = transitions[failure][c];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isDigit(final byte c) {
+        return c >= '0' && c <= '9';
+    }
+}
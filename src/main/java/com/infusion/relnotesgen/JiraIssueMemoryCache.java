@@ -0,0 +1,107 @@
+package com.infusion.relnotesgen;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.atlassian.jira.rest.client.domain.Issue;
+
+/**
+ * Keeps fetched issues in memory so invocations in the same JVM (e.g. many {@link MainInvoker} calls for components
+ * sharing one jira) don't fetch the same issue again. Issues are kept at most time to live, when there is more issues
+ * than max size the least recently used ones are removed. Issues are kept per jira and user so issue is never served
+ * to user that jira wouldn't show it to.
+ *
+ * @author trojek
+ *
+ */
+class JiraIssueMemoryCache {
+
+    private static JiraIssueMemoryCache shared;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int maxSize;
+    private long timeToLive;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    JiraIssueMemoryCache(final int maxSize, final long timeToLive) {
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * @return cache shared by whole JVM, limits are updated to given values
+     */
+    static synchronized JiraIssueMemoryCache shared(final int maxSize, final int timeToLiveMinutes) {
+        if (shared == null) {
+            shared = new JiraIssueMemoryCache(maxSize, TimeUnit.MINUTES.toMillis(timeToLiveMinutes));
+        } else {
+            shared.limit(maxSize, TimeUnit.MINUTES.toMillis(timeToLiveMinutes));
+        }
+        return shared;
+    }
+
+    static synchronized IssueCacheStatistics sharedStatistics() {
+        return shared == null ? new IssueCacheStatistics(0, 0, 0, 0) : shared.statistics();
+    }
+
+    static synchronized void clearShared() {
+        shared = null;
+    }
+
+    synchronized void limit(final int maxSize, final long timeToLive) {
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        evictOverflow();
+    }
+
+    synchronized Issue get(final String jiraUrl, final String user, final String issueKey) {
+        String key = key(jiraUrl, user, issueKey);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.created > timeToLive) {
+            entries.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.issue;
+    }
+
+    synchronized void put(final String jiraUrl, final String user, final Issue issue) {
+        entries.put(key(jiraUrl, user, issue.getKey()), new Entry(issue));
+        evictOverflow();
+    }
+
+    synchronized IssueCacheStatistics statistics() {
+        return new IssueCacheStatistics(entries.size(), hits, misses, evictions);
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (entries.size() > maxSize && leastRecentlyUsed.hasNext()) {
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            evictions++;
+        }
+    }
+
+    private String key(final String jiraUrl, final String user, final String issueKey) {
+        return jiraUrl + "|" + user + "/" + issueKey;
+    }
+
+    private static class Entry {
+        final Issue issue;
+        final long created = System.currentTimeMillis();
+
+        Entry(final Issue issue) {
+            this.issue = issue;
+        }
+    }
+}
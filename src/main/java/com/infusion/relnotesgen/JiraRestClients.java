@@ -0,0 +1,177 @@
+package com.infusion.relnotesgen;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.apache.commons.lang3.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.atlassian.jira.rest.client.internal.jersey.JerseyJiraRestClient;
+import com.atlassian.jira.rest.client.internal.jersey.JerseyJiraRestClientFactory;
+
+/**
+ * Jira rest clients shared by whole JVM, one client per jira url and user. Creating client is costly and every
+ * new client opens new connections so client is created once and reused by following invocations.
+ * Connections of every client are kept alive in pool limited by {@link Configuration#getJiraConnectionsMax()} and
+ * closed after being idle for {@link Configuration#getJiraConnectionsIdle()} seconds.
+ * <p>
+ * Client is replaced by new one when password or connection settings change. Replaced client may still be used by
+ * other invocation so it's closed only when all invocations which got it have released it.
+ *
+ * @author trojek
+ *
+ */
+class JiraRestClients {
+
+    private final static Logger logger = LoggerFactory.getLogger(Configuration.LOGGER_NAME);
+
+    private static final Map<String, SharedClient> clients = new HashMap<>();
+    /**
+     * Clients which are given out, including replaced ones which weren't released yet
+     */
+    private static final Map<JerseyJiraRestClient, SharedClient> usedClients = new IdentityHashMap<>();
+
+    private JiraRestClients() {
+    }
+
+    /**
+     * @return client which has to be released with {@link #release(JerseyJiraRestClient)} when invocation is done
+     */
+    static synchronized JerseyJiraRestClient get(final Configuration configuration) throws URISyntaxException {
+        String key = configuration.getJiraUrl() + "|" + configuration.getJiraUsername();
+        SharedClient client = clients.get(key);
+        if (client != null && !ObjectUtils.equals(client.password, configuration.getJiraPassword())) {
+            logger.info("Password for jira user {} has changed, replacing its rest client", configuration.getJiraUsername());
+            replace(key, client);
+            client = null;
+        } else if (client != null && (client.maxConnections != configuration.getJiraConnectionsMax()
+                || client.idleSeconds != configuration.getJiraConnectionsIdle())) {
+            logger.info("Connection settings of jira rest client of user {} have changed from max {} and idle {} to max {} and idle {}, replacing the client",
+                    configuration.getJiraUsername(), client.maxConnections, client.idleSeconds,
+                    configuration.getJiraConnectionsMax(), configuration.getJiraConnectionsIdle());
+            replace(key, client);
+            client = null;
+        }
+
+        if (client == null) {
+            logger.info("Creating jira rest client with url {} and user {}", configuration.getJiraUrl(), configuration.getJiraUsername());
+            JerseyJiraRestClientFactory factory = new JerseyJiraRestClientFactory();
+            client = new SharedClient(factory.createWithBasicHttpAuthentication(new URI(configuration.getJiraUrl()),
+                    configuration.getJiraUsername(), configuration.getJiraPassword()), configuration);
+            configurePool(client);
+            clients.put(key, client);
+        } else {
+            logger.info("Reusing jira rest client with url {} and user {}", configuration.getJiraUrl(), configuration.getJiraUsername());
+        }
+
+        client.users++;
+        usedClients.put(client.restClient, client);
+        return client.restClient;
+    }
+
+    /**
+     * Invocation doesn't use client anymore, replaced client is closed when nobody uses it.
+     */
+    static synchronized void release(final JerseyJiraRestClient restClient) {
+        SharedClient client = usedClients.get(restClient);
+        if (client == null) {
+            return;
+        }
+        client.users--;
+        if (client.users <= 0) {
+            usedClients.remove(restClient);
+            if (client.replaced) {
+                close(client);
+            }
+        }
+    }
+
+    /**
+     * Closes all clients and their pooled connections.
+     */
+    static synchronized void closeAll() {
+        for (SharedClient client : clients.values()) {
+            close(client);
+        }
+        for (SharedClient client : usedClients.values()) {
+            if (client.replaced) {
+                close(client);
+            }
+        }
+        clients.clear();
+        usedClients.clear();
+    }
+
+    private static void replace(final String key, final SharedClient client) {
+        clients.remove(key);
+        client.replaced = true;
+        if (client.users <= 0) {
+            close(client);
+        } else {
+            logger.info("Replaced jira rest client is used by {} invocations, it will be closed when they are done", client.users);
+        }
+    }
+
+    private static void configurePool(final SharedClient client) {
+        HttpConnectionManager connectionManager = connectionManager(client);
+        if (client.maxConnections > 0) {
+            //all requests go to single jira host so per route and total limits are the same
+            HttpConnectionManagerParams params = connectionManager.getParams();
+            params.setDefaultMaxConnectionsPerHost(client.maxConnections);
+            params.setMaxTotalConnections(client.maxConnections);
+        }
+
+        if (client.idleSeconds > 0) {
+            //every client has its own closer so its idle timeout doesn't depend on other clients
+            long idleTimeout = TimeUnit.SECONDS.toMillis(client.idleSeconds);
+            client.idleConnectionsCloser = new IdleConnectionTimeoutThread();
+            client.idleConnectionsCloser.setName("jira-idle-connections-closer");
+            client.idleConnectionsCloser.setConnectionTimeout(idleTimeout);
+            client.idleConnectionsCloser.setTimeoutInterval(Math.max(1000, idleTimeout / 2));
+            client.idleConnectionsCloser.addConnectionManager(connectionManager);
+            client.idleConnectionsCloser.start();
+        }
+    }
+
+    private static void close(final SharedClient client) {
+        if (client.idleConnectionsCloser != null) {
+            client.idleConnectionsCloser.shutdown();
+            client.idleConnectionsCloser = null;
+        }
+        HttpConnectionManager connectionManager = connectionManager(client);
+        if (connectionManager instanceof MultiThreadedHttpConnectionManager) {
+            ((MultiThreadedHttpConnectionManager) connectionManager).shutdown();
+        }
+        client.restClient.getTransportClient().destroy();
+    }
+
+    private static HttpConnectionManager connectionManager(final SharedClient client) {
+        return client.restClient.getTransportClient().getClientHandler().getHttpClient().getHttpConnectionManager();
+    }
+
+    private static class SharedClient {
+        final JerseyJiraRestClient restClient;
+        final String password;
+        final int maxConnections;
+        final int idleSeconds;
+        IdleConnectionTimeoutThread idleConnectionsCloser;
+        int users = 0;
+        boolean replaced = false;
+
+        SharedClient(final JerseyJiraRestClient restClient, final Configuration configuration) {
+            this.restClient = restClient;
+            this.password = configuration.getJiraPassword();
+            this.maxConnections = configuration.getJiraConnectionsMax();
+            this.idleSeconds = configuration.getJiraConnectionsIdle();
+        }
+    }
+}
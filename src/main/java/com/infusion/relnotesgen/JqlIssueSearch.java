@@ -0,0 +1,381 @@
+package com.infusion.relnotesgen;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.atlassian.jira.rest.client.domain.Issue;
+import com.atlassian.jira.rest.client.internal.json.IssueJsonParser;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.UniformInterfaceException;
+import com.sun.jersey.api.client.WebResource;
+
+/**
+ * Resolves many jira issues with few JQL search requests 'key in (...)', each request asks for at most chunk size keys.
+ * Search result contains whole issues so they are parsed the same way as issues queried one by one.
+ * Optional filter JQL is appended to every search so issues that would be filtered out are not returned at all.
+ * Issues missing in filtered search are searched again without filter asking only for their keys, issues found that
+ * way were rejected by filter and are never fetched.
+ *
+ * @author trojek
+ *
+ */
+class JqlIssueSearch {
+
+    private final static Logger logger = LoggerFactory.getLogger(Configuration.LOGGER_NAME);
+
+    static final String DEFAULT_FIELDS = "*all";
+    static final int DEFAULT_CHUNK_SIZE = 100;
+    private static final String UPDATED_FIELD = "updated";
+    private static final int BAD_REQUEST = 400;
+
+    private final Client client;
+    private final String searchUrl;
+    private final int chunkSize;
+    private final String fields;
+    private final IssueJsonParser issueParser = new IssueJsonParser();
+    private String filterJql;
+    private boolean filterJqlValidated = false;
+
+    JqlIssueSearch(final Client client, final String jiraUrl, final int chunkSize, final String fields, final String filterJql) {
+        this.client = client;
+        this.searchUrl = jiraUrl + "/rest/api/latest/search";
+        this.chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+        this.fields = searchFields(fields);
+        this.filterJql = isBlank(filterJql) ? null : filterJql;
+    }
+
+    Result findIssues(final Collection<String> issueKeys) {
+        validateFilterJql();
+
+        Result result = new Result();
+        Set<String> missingKeys = search(issueKeys, true, result);
+        //issue missing in filtered search was most likely filtered out by jira, search without filter asking only
+        //for 'updated' field tells it from issue which doesn't exist without downloading it
+        if (filterJql != null && !missingKeys.isEmpty()) {
+            logger.info("{} issues weren't returned by filtered search, checking if they exist", missingKeys.size());
+            Set<String> notExistingKeys = search(missingKeys, false, result);
+            for (String issueKey : missingKeys) {
+                if (!notExistingKeys.contains(issueKey) && !result.unresolvedKeys.contains(issueKey)) {
+                    result.filteredKeys.add(issueKey);
+                }
+            }
+            missingKeys = notExistingKeys;
+        }
+        //issue missing in search without filter has to be queried separately
+        result.unresolvedKeys.addAll(missingKeys);
+
+        logger.info("JQL search found {} of {} issues, {} issues were filtered out by jira, {} issues has to be queried separately",
+                result.issues.size(), issueKeys.size(), result.filteredKeys.size(), result.unresolvedKeys.size());
+        return result;
+    }
+
+    /**
+     * Issue is returned under its current key, which differs from asked one when issue was moved to other project or
+     * asked key is differently cased. Keys are compared ignoring case and issues which don't match any asked key are
+     * matched by keys they had before they were moved.
+     *
+     * @param filtered when true whole issues passing filter are returned into result, otherwise only keys of issues
+     *        are asked for
+     * @return asked keys of issues which weren't returned
+     */
+    private Set<String> search(final Collection<String> issueKeys, final boolean filtered, final Result result) {
+        final Set<String> returnedKeys = new LinkedHashSet<>();
+        if (filtered) {
+            searchInChunks(issueKeys, true, fields, "names,schema", result.unresolvedKeys, new PageParser() {
+
+                @Override
+                public void parse(final JSONObject page, final JSONArray issues) throws JSONException {
+                    parseIssues(page, issues, result, returnedKeys);
+                }
+            });
+        } else {
+            searchInChunks(issueKeys, false, UPDATED_FIELD, null, result.unresolvedKeys, new PageParser() {
+
+                @Override
+                public void parse(final JSONObject page, final JSONArray issues) throws JSONException {
+                    for (int i = 0; i < issues.length(); i++) {
+                        returnedKeys.add(issues.getJSONObject(i).getString("key"));
+                    }
+                }
+            });
+        }
+
+        Map<String, String> returnedByKey = new HashMap<>();
+        for (String returnedKey : returnedKeys) {
+            returnedByKey.put(returnedKey.toUpperCase(Locale.ROOT), returnedKey);
+        }
+        Set<String> notMatchedKeys = new LinkedHashSet<>(returnedKeys);
+        Set<String> missingKeys = new LinkedHashSet<>();
+        for (String issueKey : issueKeys) {
+            String returnedKey = returnedByKey.get(issueKey.toUpperCase(Locale.ROOT));
+            if (returnedKey != null) {
+                notMatchedKeys.remove(returnedKey);
+            } else if (!result.unresolvedKeys.contains(issueKey)) {
+                missingKeys.add(issueKey);
+            }
+        }
+
+        if (!missingKeys.isEmpty() && !notMatchedKeys.isEmpty()) {
+            Map<String, String> movedKeys = findPreviousKeys(notMatchedKeys);
+            for (Iterator<String> iterator = missingKeys.iterator(); iterator.hasNext();) {
+                String issueKey = iterator.next();
+                String currentKey = movedKeys.get(issueKey.toUpperCase(Locale.ROOT));
+                if (currentKey != null) {
+                    logger.info("Issue {} was moved, it's returned as {}", issueKey, currentKey);
+                    iterator.remove();
+                }
+            }
+        }
+        return missingKeys;
+    }
+
+    /**
+     * Asks for changelog of issues, keys issues had before are changes of 'Key' field.
+     *
+     * @return current key of issue by upper cased previous key
+     */
+    private Map<String, String> findPreviousKeys(final Collection<String> issueKeys) {
+        final Map<String, String> currentKeys = new HashMap<>();
+        searchInChunks(issueKeys, false, UPDATED_FIELD, "changelog", new LinkedHashSet<String>(), new PageParser() {
+
+            @Override
+            public void parse(final JSONObject page, final JSONArray issues) throws JSONException {
+                for (int i = 0; i < issues.length(); i++) {
+                    JSONObject issueJson = issues.getJSONObject(i);
+                    JSONObject changelog = issueJson.optJSONObject("changelog");
+                    JSONArray histories = changelog != null ? changelog.optJSONArray("histories") : null;
+                    for (int j = 0; histories != null && j < histories.length(); j++) {
+                        JSONArray items = histories.getJSONObject(j).optJSONArray("items");
+                        for (int k = 0; items != null && k < items.length(); k++) {
+                            JSONObject item = items.getJSONObject(k);
+                            if ("Key".equals(item.optString("field")) && !isBlank(item.optString("fromString"))) {
+                                currentKeys.put(item.getString("fromString").toUpperCase(Locale.ROOT), issueJson.getString("key"));
+                            }
+                        }
+                    }
+                }
+            }
+        });
+        return currentKeys;
+    }
+
+    /**
+     * Asks only for 'updated' field of issues so it's cheap way to check if issues have changed.
+     *
+     * @return value of 'updated' field by issue key, issues that don't exist are absent
+     */
+    Map<String, String> findUpdateStamps(final Collection<String> issueKeys) {
+        final Map<String, String> updateStamps = new HashMap<>();
+        searchInChunks(issueKeys, false, UPDATED_FIELD, null, new LinkedHashSet<String>(), new PageParser() {
+
+            @Override
+            public void parse(final JSONObject page, final JSONArray issues) throws JSONException {
+                for (int i = 0; i < issues.length(); i++) {
+                    JSONObject issueJson = issues.getJSONObject(i);
+                    updateStamps.put(issueJson.getString("key"), updateStamp(issueJson));
+                }
+            }
+        });
+        return updateStamps;
+    }
+
+    /**
+     * Field 'updated' is always asked for as cached issues are validated by it.
+     *
+     * @return given fields with 'updated' field, all fields when none are given
+     */
+    static String searchFields(final String fields) {
+        if (isBlank(fields)) {
+            return DEFAULT_FIELDS;
+        }
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.equals(UPDATED_FIELD) || name.equals(DEFAULT_FIELDS) || name.equals("*navigable")) {
+                return fields;
+            }
+        }
+        return fields + "," + UPDATED_FIELD;
+    }
+
+    static String updateStamp(final JSONObject issueJson) throws JSONException {
+        return issueJson.getJSONObject("fields").optString(UPDATED_FIELD);
+    }
+
+    private void searchInChunks(final Collection<String> issueKeys, final boolean filtered, final String fields, final String expand,
+            final Set<String> rejectedKeys, final PageParser parser) {
+        List<String> chunk = new ArrayList<>(chunkSize);
+        for (String issueKey : issueKeys) {
+            chunk.add(issueKey);
+            if (chunk.size() == chunkSize) {
+                search(chunk, filtered, fields, expand, rejectedKeys, parser);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            search(chunk, filtered, fields, expand, rejectedKeys, parser);
+        }
+    }
+
+    /**
+     * Jira answers with 400 when any of keys in JQL doesn't exist, in that case chunk is split in halves
+     * to find remaining keys.
+     */
+    private void search(final List<String> chunk, final boolean filtered, final String fields, final String expand,
+            final Set<String> rejectedKeys, final PageParser parser) {
+        try {
+            searchAllPages(buildJql(chunk, filtered), fields, expand, parser);
+        } catch (UniformInterfaceException e) {
+            if (e.getResponse().getStatus() != BAD_REQUEST) {
+                throw e;
+            }
+            if (chunk.size() == 1) {
+                logger.warn("JQL search rejected key {}, it will be queried separately.", chunk.get(0));
+                rejectedKeys.add(chunk.get(0));
+                return;
+            }
+            int half = chunk.size() / 2;
+            search(chunk.subList(0, half), filtered, fields, expand, rejectedKeys, parser);
+            search(chunk.subList(half, chunk.size()), filtered, fields, expand, rejectedKeys, parser);
+        }
+    }
+
+    /**
+     * Jira answers with 400 also when filter refers to not existing value (e.g. unknown issue type). Such filter
+     * would make every search fail so it's checked once with empty page and dropped when rejected.
+     */
+    private void validateFilterJql() {
+        if (filterJql == null || filterJqlValidated) {
+            return;
+        }
+        try {
+            client.resource(searchUrl)
+                    .queryParam("jql", filterJql)
+                    .queryParam("maxResults", "0")
+                    .accept("application/json")
+                    .get(String.class);
+            logger.info("Filters will be applied by jira with JQL '{}'", filterJql);
+        } catch (UniformInterfaceException e) {
+            if (e.getResponse().getStatus() != BAD_REQUEST) {
+                throw e;
+            }
+            logger.warn("Jira rejected filter JQL '{}', issues will be filtered only after they are fetched", filterJql);
+            filterJql = null;
+        }
+        filterJqlValidated = true;
+    }
+
+    private void searchAllPages(final String jql, final String fields, final String expand, final PageParser parser) {
+        logger.info("Searching jira with JQL '{}'", jql);
+        try {
+            int startAt = 0;
+            int total;
+            int pageSize;
+            do {
+                long startTime = System.currentTimeMillis();
+                WebResource resource = client.resource(searchUrl)
+                        .queryParam("jql", jql)
+                        .queryParam("startAt", String.valueOf(startAt))
+                        .queryParam("maxResults", String.valueOf(chunkSize))
+                        .queryParam("fields", fields);
+                if (expand != null) {
+                    resource = resource.queryParam("expand", expand);
+                }
+                String response = resource.accept("application/json").get(String.class);
+
+                JSONObject page = new JSONObject(response);
+                JSONArray issues = page.getJSONArray("issues");
+                parser.parse(page, issues);
+                pageSize = issues.length();
+                total = page.getInt("total");
+                startAt += pageSize;
+                logger.info("JQL search returned {} issues of {}, it took {} milis.", pageSize, total, System.currentTimeMillis() - startTime);
+            } while (pageSize > 0 && startAt < total);
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void parseIssues(final JSONObject page, final JSONArray issues, final Result result, final Set<String> returnedKeys)
+            throws JSONException {
+        JSONObject names = page.optJSONObject("names");
+        JSONObject schema = page.optJSONObject("schema");
+
+        for (int i = 0; i < issues.length(); i++) {
+            JSONObject issueJson = issues.getJSONObject(i);
+            //names and schema are returned once for whole search result, parser expects them in every issue
+            if (names != null && !issueJson.has("names")) {
+                issueJson.put("names", names);
+            }
+            if (schema != null && !issueJson.has("schema")) {
+                issueJson.put("schema", schema);
+            }
+            try {
+                Issue issue = issueParser.parse(issueJson);
+                result.issues.put(issue.getKey(), issue);
+                result.issuesJson.put(issue.getKey(), issueJson);
+                returnedKeys.add(issue.getKey());
+            } catch (JSONException e) {
+                logger.warn("Couldn't parse issue {} from search result, it will be queried separately. Cause: {}", issueJson.optString("key"), e.getMessage());
+                result.unresolvedKeys.add(issueJson.optString("key"));
+            }
+        }
+    }
+
+    private String buildJql(final Collection<String> issueKeys, final boolean filtered) {
+        String jql = "key in " + valueList(issueKeys);
+        return !filtered || filterJql == null ? jql : jql + " AND (" + filterJql + ")";
+    }
+
+    /**
+     * @return values quoted and separated by comma in parentheses, e.g. ("SYM-1","SYM-2")
+     */
+    static String valueList(final Collection<String> values) {
+        StringBuilder list = new StringBuilder("(");
+        for (String value : values) {
+            if (list.length() > 1) {
+                list.append(",");
+            }
+            list.append('"').append(value.replace("\"", "\\\"")).append('"');
+        }
+        return list.append(")").toString();
+    }
+
+    private interface PageParser {
+        void parse(final JSONObject page, final JSONArray issues) throws JSONException;
+    }
+
+    static class Result {
+        /**
+         * Found issues by key
+         */
+        final Map<String, Issue> issues = new LinkedHashMap<>();
+        /**
+         * Json representation of found issues by key, the same from which issues were parsed
+         */
+        final Map<String, JSONObject> issuesJson = new HashMap<>();
+        /**
+         * Asked keys of issues which exist but were rejected by filter JQL, they are not fetched at all
+         */
+        final Set<String> filteredKeys = new LinkedHashSet<>();
+        /**
+         * Keys of issues which weren't resolved by search and have to be queried one by one
+         */
+        final Set<String> unresolvedKeys = new LinkedHashSet<>();
+    }
+}
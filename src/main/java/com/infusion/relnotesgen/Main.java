@@ -7,9 +7,14 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -19,6 +24,8 @@ import com.atlassian.jira.rest.client.domain.Issue;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.infusion.relnotesgen.Configuration.Element;
+import com.infusion.relnotesgen.ReleaseNotesMetrics.MeasuringConsumer;
+import com.infusion.relnotesgen.ReleaseNotesMetrics.Stage;
 
 /**
  * @author trojek
@@ -29,6 +36,11 @@ public class Main {
     private final static Logger logger = LoggerFactory.getLogger(Configuration.LOGGER_NAME);
 
     public static final String CONFIGURATION_FILE = "./configuration.properties";
+    /**
+     * Format of since and until parameters, time may be left out
+     */
+    public static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss";
+    private static final String DAY_FORMAT = "yyyy-MM-dd";
 
     public static void main(final String[] args) throws IOException {
         generateReleaseNotes(args);
@@ -42,45 +54,96 @@ public class Main {
         Configuration configuration = readConfiguration(programParameters);
         logger.info("Build configuration: {}", configuration);
 
-        //1. Getting git log messages
-        SCMFacade gitFacade = new GitFacade(configuration);
-        SCMFacade.Response gitInfo = getGitInfo(programParameters, gitFacade);
+        ReleaseNotesMetrics metrics = new ReleaseNotesMetrics();
 
-        //2. Matching issue ids from git log
-        Set<String> jiraIssueIds = new JiraIssueIdMatcher(configuration.getJiraIssuePattern()).findJiraIds(gitInfo.messages);
+        //1. Getting git log messages and 2. matching issue ids from them as they are read
+        metrics.start(Stage.GIT_SYNC);
+        GitFacade gitFacade = new GitFacade(configuration);
+        metrics.finish(Stage.GIT_SYNC, gitFacade.getSyncedObjects(), gitFacade.getSyncedBytes());
+        Set<String> jiraIssueIds = new HashSet<>();
+        MeasuringConsumer consumer = metrics.measure(
+                new JiraIssueIdMatcher(configuration.getJiraIssuePattern(), configuration.getJiraProjectKeys()).collectJiraIds(jiraIssueIds));
+        String version = readGitHistory(programParameters, gitFacade, consumer);
+        metrics.finishLogWalk(consumer);
+        metrics.add(Stage.ID_MATCHING, 0, jiraIssueIds.size(), 0);
+        logger.info("Found {} jira issue's ids", jiraIssueIds.size());
 
         //3. Quering jira for issues
-        Collection<Issue> issues = new JiraIssueDao(configuration).findIssues(jiraIssueIds);
+        metrics.start(Stage.JIRA_FETCH);
+        JiraIssueDao jiraIssueDao = new JiraIssueDao(configuration);
+        Collection<Issue> issues;
+        try {
+            issues = jiraIssueDao.findIssues(jiraIssueIds);
+        } finally {
+            jiraIssueDao.close();
+        }
+        metrics.finish(Stage.JIRA_FETCH, issues.size(), 0);
 
         //4. Creating report
-        File report = createReport(configuration, gitInfo, issues);
+        metrics.start(Stage.RENDERING);
+        File report = createReport(configuration, version, issues);
+        metrics.finish(Stage.RENDERING, issues.size(), report.length());
 
         //5. Pushing release notes to repo
         if(programParameters.pushReleaseNotes) {
             logger.info("Pushing release notes to remote repository");
-            gitFacade.pushReleaseNotes(report, gitInfo.version);
+            metrics.start(Stage.PUSH);
+            gitFacade.pushReleaseNotes(report, version);
+            metrics.finish(Stage.PUSH, 1, report.length());
         }
         gitFacade.close();
 
         logger.info("Release notes generated under {}", report.getAbsolutePath());
 
+        metrics.log(logger);
+        if(configuration.isReportMetrics()) {
+            logger.info("Metrics written to {}", metrics.write(report).getAbsolutePath());
+        }
+
         return report;
     }
 
-    private static SCMFacade.Response getGitInfo(final ProgramParameters programParameters, final SCMFacade gitFacade) {
+    /**
+     * @return version of latest commit in read history
+     */
+    private static String readGitHistory(final ProgramParameters programParameters, final SCMFacade gitFacade,
+            final SCMFacade.MessageConsumer consumer) {
         if(isNotEmpty(programParameters.tag1) || isNotEmpty(programParameters.tag2)) {
             logger.info("Reading scm history by tags '{}' and '{}'", programParameters.tag1, programParameters.tag2);
-            return gitFacade.readByTag(programParameters.tag1, programParameters.tag2);
+            return gitFacade.readByTag(programParameters.tag1, programParameters.tag2, consumer);
         } else if(isNotEmpty(programParameters.commitId1) || isNotEmpty(programParameters.commitId2)) {
             logger.info("Reading scm history by commit ids '{}' and '{}'", programParameters.commitId1, programParameters.commitId2);
-            return gitFacade.readByCommit(programParameters.commitId1, programParameters.commitId2);
+            return gitFacade.readByCommit(programParameters.commitId1, programParameters.commitId2, consumer);
+        } else if(isNotEmpty(programParameters.since) || isNotEmpty(programParameters.until)) {
+            logger.info("Reading scm history by dates '{}' and '{}'", programParameters.since, programParameters.until);
+            return gitFacade.readByDate(parseDate(programParameters.since, false), parseDate(programParameters.until, true), consumer);
         } else {
             logger.info("No commit id or tag parameter provided, reading scm history by two latests tags.");
-            return gitFacade.readLatestReleasedVersion();
+            return gitFacade.readLatestReleasedVersion(consumer);
+        }
+    }
+
+    /**
+     * @param endOfDay when date is given without time whole day is taken into account, i.e. until is end of that day
+     * @return date in local time zone or null for empty value
+     */
+    static Date parseDate(final String value, final boolean endOfDay) {
+        if (StringUtils.isEmpty(value)) {
+            return null;
+        }
+        try {
+            return new SimpleDateFormat(DATE_FORMAT).parse(value);
+        } catch (ParseException e) {
+            try {
+                Date day = new SimpleDateFormat(DAY_FORMAT).parse(value);
+                return endOfDay ? new Date(day.getTime() + TimeUnit.DAYS.toMillis(1) - 1) : day;
+            } catch (ParseException dayException) {
+                throw new IllegalArgumentException("Date '" + value + "' doesn't match " + DATE_FORMAT + " or " + DAY_FORMAT, dayException);
+            }
         }
     }
 
-    private static File createReport(final Configuration configuration, final SCMFacade.Response gitInfo, final Collection<Issue> issues)
+    private static File createReport(final Configuration configuration, final String version, final Collection<Issue> issues)
             throws IOException {
         File reportDirectory = null;
         if(StringUtils.isEmpty(configuration.getReportDirectory())) {
@@ -90,7 +153,7 @@ public class Main {
             logger.info("Creating report under defined directory in {}", configuration.getReportDirectory());
             reportDirectory = new File(configuration.getReportDirectory());
         }
-        return new ReleaseNotesGenerator(configuration).generate(issues, reportDirectory, gitInfo.version);
+        return new ReleaseNotesGenerator(configuration).generate(issues, reportDirectory, version);
     }
 
     private static Configuration readConfiguration(final ProgramParameters programParameters) throws IOException, FileNotFoundException {
@@ -124,6 +187,12 @@ public class Main {
         @Parameter(names = { "-tag2"}, description = "Tag 2 delimeter")
         private String tag2;
 
+        @Parameter(names = { "-since"}, description = "History is read from commits committed at that date, yyyy-MM-dd or yyyy-MM-dd'T'HH:mm:ss")
+        private String since;
+
+        @Parameter(names = { "-until"}, description = "History is read till commits committed at that date, yyyy-MM-dd or yyyy-MM-dd'T'HH:mm:ss")
+        private String until;
+
         @Parameter(names = { "-pushReleaseNotes"}, description = "Perform push of release notes to remote repo")
         private boolean pushReleaseNotes = false;
 
@@ -135,6 +204,34 @@ public class Main {
         @Parameter(names = { "-gitBranch"})
         private String gitBranch;
 
+        @Element(Configuration.GIT_BARE)
+        @Parameter(names = { "-gitBare"})
+        private String gitBare;
+
+        @Element(Configuration.GIT_FETCHONLY)
+        @Parameter(names = { "-gitFetchOnly"})
+        private String gitFetchOnly;
+
+        @Element(Configuration.GIT_FETCH_FRESHNESS)
+        @Parameter(names = { "-gitFetchFreshness"})
+        private String gitFetchFreshness;
+
+        @Element(Configuration.GIT_TAG_PATTERN)
+        @Parameter(names = { "-gitTagPattern"})
+        private String gitTagPattern;
+
+        @Element(Configuration.GIT_KEYINDEX)
+        @Parameter(names = { "-gitKeyIndex"})
+        private String gitKeyIndex;
+
+        @Element(Configuration.GIT_FIRSTPARENT)
+        @Parameter(names = { "-gitFirstParent"})
+        private String gitFirstParent;
+
+        @Element(Configuration.GIT_FIRSTPARENT_MERGES)
+        @Parameter(names = { "-gitFirstParentMerges"})
+        private String gitFirstParentMerges;
+
         @Element(Configuration.GIT_URL)
         @Parameter(names = { "-gitUrl"})
         private String gitUrl;
@@ -175,6 +272,54 @@ public class Main {
         @Parameter(names = { "-jiraIssuePattern"})
         private String jiraIssuePattern;
 
+        @Element(Configuration.JIRA_PROJECTKEYS)
+        @Parameter(names = { "-jiraProjectKeys"})
+        private String jiraProjectKeys;
+
+        @Element(Configuration.JIRA_FETCH_THREADS)
+        @Parameter(names = { "-jiraFetchThreads"})
+        private String jiraFetchThreads;
+
+        @Element(Configuration.JIRA_FETCH_INFLIGHT)
+        @Parameter(names = { "-jiraFetchInFlight"})
+        private String jiraFetchInFlight;
+
+        @Element(Configuration.JIRA_SEARCH_CHUNKSIZE)
+        @Parameter(names = { "-jiraSearchChunkSize"})
+        private String jiraSearchChunkSize;
+
+        @Element(Configuration.JIRA_SEARCH_FIELDS)
+        @Parameter(names = { "-jiraSearchFields"})
+        private String jiraSearchFields;
+
+        @Element(Configuration.JIRA_CACHE_DIRECTORY)
+        @Parameter(names = { "-jiraCacheDirectory"})
+        private String jiraCacheDirectory;
+
+        @Element(Configuration.JIRA_CACHE_MAXAGE)
+        @Parameter(names = { "-jiraCacheMaxAge"})
+        private String jiraCacheMaxAge;
+
+        @Element(Configuration.JIRA_CACHE_MAXSIZE)
+        @Parameter(names = { "-jiraCacheMaxSize"})
+        private String jiraCacheMaxSize;
+
+        @Element(Configuration.JIRA_MEMORYCACHE_SIZE)
+        @Parameter(names = { "-jiraMemoryCacheSize"})
+        private String jiraMemoryCacheSize;
+
+        @Element(Configuration.JIRA_MEMORYCACHE_TTL)
+        @Parameter(names = { "-jiraMemoryCacheTtl"})
+        private String jiraMemoryCacheTtl;
+
+        @Element(Configuration.JIRA_CONNECTIONS_MAX)
+        @Parameter(names = { "-jiraConnectionsMax"})
+        private String jiraConnectionsMax;
+
+        @Element(Configuration.JIRA_CONNECTIONS_IDLE)
+        @Parameter(names = { "-jiraConnectionsIdle"})
+        private String jiraConnectionsIdle;
+
         @Element(Configuration.ISSUE_FILTERBY_COMPONENT)
         @Parameter(names = { "-issueFilterByComponent"})
         private String issueFilterByComponent;
@@ -206,5 +351,9 @@ public class Main {
         @Element(Configuration.REPORT_TEMPLATE)
         @Parameter(names = { "-reportTemplate"})
         private String reportTemplate;
+
+        @Element(Configuration.REPORT_METRICS)
+        @Parameter(names = { "-reportMetrics"})
+        private String reportMetrics;
     }
 }
@@ -6,7 +6,9 @@ package com.infusion.relnotesgen;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -22,8 +24,17 @@ public class MainInvoker {
     private String commitId2;
     private String tag1;
     private String tag2;
+    private String since;
+    private String until;
     private String gitDirectory;
     private String gitBranch;
+    private String gitBare;
+    private String gitFetchOnly;
+    private String gitFetchFreshness;
+    private String gitTagPattern;
+    private String gitKeyIndex;
+    private String gitFirstParent;
+    private String gitFirstParentMerges;
     private String gitUrl;
     private String gitUsername;
     private String gitPassword;
@@ -35,6 +46,18 @@ public class MainInvoker {
     private String jiraUsername;
     private String jiraPassword;
     private String jiraIssuePattern;
+    private String jiraProjectKeys;
+    private String jiraFetchThreads;
+    private String jiraFetchInFlight;
+    private String jiraSearchChunkSize;
+    private String jiraSearchFields;
+    private String jiraCacheDirectory;
+    private String jiraCacheMaxAge;
+    private String jiraCacheMaxSize;
+    private String jiraMemoryCacheSize;
+    private String jiraMemoryCacheTtl;
+    private String jiraConnectionsMax;
+    private String jiraConnectionsIdle;
     private String issueFilterByComponent;
     private String issueFilterByType;
     private String issueFilterByLabel;
@@ -43,6 +66,28 @@ public class MainInvoker {
     private String issueSortPriority;
     private String reportDirectory;
     private String reportTemplate;
+    private String reportMetrics;
+
+    /**
+     * @return statistics of in memory issue cache shared by all invocations in this JVM
+     */
+    public static IssueCacheStatistics issueCacheStatistics() {
+        return JiraIssueMemoryCache.sharedStatistics();
+    }
+
+    /**
+     * Drops all issues kept in memory by previous invocations.
+     */
+    public static void clearIssueCache() {
+        JiraIssueMemoryCache.clearShared();
+    }
+
+    /**
+     * Closes jira clients kept for following invocations together with their pooled connections.
+     */
+    public static void closeJiraClients() {
+        JiraRestClients.closeAll();
+    }
 
     public File invoke() {
         List<String> arguments = new ArrayList<>();
@@ -98,6 +143,16 @@ public class MainInvoker {
         return this;
     }
 
+    public MainInvoker since(final Date since) {
+        this.since = new SimpleDateFormat(Main.DATE_FORMAT).format(since);
+        return this;
+    }
+
+    public MainInvoker until(final Date until) {
+        this.until = new SimpleDateFormat(Main.DATE_FORMAT).format(until);
+        return this;
+    }
+
     public MainInvoker gitDirectory(final String gitDirectory) {
         this.gitDirectory = gitDirectory;
         return this;
@@ -108,6 +163,41 @@ public class MainInvoker {
         return this;
     }
 
+    public MainInvoker gitBare(final boolean gitBare) {
+        this.gitBare = String.valueOf(gitBare);
+        return this;
+    }
+
+    public MainInvoker gitFetchOnly(final boolean gitFetchOnly) {
+        this.gitFetchOnly = String.valueOf(gitFetchOnly);
+        return this;
+    }
+
+    public MainInvoker gitFetchFreshness(final int gitFetchFreshness) {
+        this.gitFetchFreshness = String.valueOf(gitFetchFreshness);
+        return this;
+    }
+
+    public MainInvoker gitTagPattern(final String gitTagPattern) {
+        this.gitTagPattern = gitTagPattern;
+        return this;
+    }
+
+    public MainInvoker gitKeyIndex(final boolean gitKeyIndex) {
+        this.gitKeyIndex = String.valueOf(gitKeyIndex);
+        return this;
+    }
+
+    public MainInvoker gitFirstParent(final boolean gitFirstParent) {
+        this.gitFirstParent = String.valueOf(gitFirstParent);
+        return this;
+    }
+
+    public MainInvoker gitFirstParentMerges(final boolean gitFirstParentMerges) {
+        this.gitFirstParentMerges = String.valueOf(gitFirstParentMerges);
+        return this;
+    }
+
     public MainInvoker gitUrl(final String gitUrl) {
         this.gitUrl = gitUrl;
         return this;
@@ -163,6 +253,66 @@ public class MainInvoker {
         return this;
     }
 
+    public MainInvoker jiraProjectKeys(final String jiraProjectKeys) {
+        this.jiraProjectKeys = jiraProjectKeys;
+        return this;
+    }
+
+    public MainInvoker jiraFetchThreads(final int jiraFetchThreads) {
+        this.jiraFetchThreads = String.valueOf(jiraFetchThreads);
+        return this;
+    }
+
+    public MainInvoker jiraFetchInFlight(final int jiraFetchInFlight) {
+        this.jiraFetchInFlight = String.valueOf(jiraFetchInFlight);
+        return this;
+    }
+
+    public MainInvoker jiraSearchChunkSize(final int jiraSearchChunkSize) {
+        this.jiraSearchChunkSize = String.valueOf(jiraSearchChunkSize);
+        return this;
+    }
+
+    public MainInvoker jiraSearchFields(final String jiraSearchFields) {
+        this.jiraSearchFields = jiraSearchFields;
+        return this;
+    }
+
+    public MainInvoker jiraCacheDirectory(final String jiraCacheDirectory) {
+        this.jiraCacheDirectory = jiraCacheDirectory;
+        return this;
+    }
+
+    public MainInvoker jiraCacheMaxAge(final int jiraCacheMaxAge) {
+        this.jiraCacheMaxAge = String.valueOf(jiraCacheMaxAge);
+        return this;
+    }
+
+    public MainInvoker jiraCacheMaxSize(final int jiraCacheMaxSize) {
+        this.jiraCacheMaxSize = String.valueOf(jiraCacheMaxSize);
+        return this;
+    }
+
+    public MainInvoker jiraMemoryCacheSize(final int jiraMemoryCacheSize) {
+        this.jiraMemoryCacheSize = String.valueOf(jiraMemoryCacheSize);
+        return this;
+    }
+
+    public MainInvoker jiraMemoryCacheTtl(final int jiraMemoryCacheTtl) {
+        this.jiraMemoryCacheTtl = String.valueOf(jiraMemoryCacheTtl);
+        return this;
+    }
+
+    public MainInvoker jiraConnectionsMax(final int jiraConnectionsMax) {
+        this.jiraConnectionsMax = String.valueOf(jiraConnectionsMax);
+        return this;
+    }
+
+    public MainInvoker jiraConnectionsIdle(final int jiraConnectionsIdle) {
+        this.jiraConnectionsIdle = String.valueOf(jiraConnectionsIdle);
+        return this;
+    }
+
     public MainInvoker issueFilterByComponent(final String issueFilterByComponent) {
         this.issueFilterByComponent = issueFilterByComponent;
         return this;
@@ -202,4 +352,9 @@ public class MainInvoker {
         this.reportTemplate = reportTemplate;
         return this;
     }
+
+    public MainInvoker reportMetrics(final boolean reportMetrics) {
+        this.reportMetrics = String.valueOf(reportMetrics);
+        return this;
+    }
 }
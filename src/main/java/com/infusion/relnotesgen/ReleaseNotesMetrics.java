@@ -0,0 +1,211 @@
+package com.infusion.relnotesgen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+
+/**
+ * Duration, number of processed items and bytes of every stage of release notes generation. Stages which weren't run
+ * (e.g. push) are left out of summary, items and bytes are 0 when stage doesn't process any. Items of git sync are
+ * received objects and its bytes are size of synced repository on disk. Bytes of log walk are bytes of read messages
+ * or chars of them when scm passes decoded messages.
+ *
+ * @author trojek
+ *
+ */
+public class ReleaseNotesMetrics {
+
+    public enum Stage {
+        GIT_SYNC("gitSync"),
+        LOG_WALK("logWalk"),
+        ID_MATCHING("idMatching"),
+        JIRA_FETCH("jiraFetch"),
+        RENDERING("rendering"),
+        PUSH("push");
+
+        private final String key;
+
+        Stage(final String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final Map<Stage, StageMetrics> stages = new EnumMap<>(Stage.class);
+    private final Map<Stage, Long> startTimes = new EnumMap<>(Stage.class);
+
+    public void start(final Stage stage) {
+        startTimes.put(stage, System.nanoTime());
+    }
+
+    /**
+     * Records time elapsed since stage was started.
+     */
+    public void finish(final Stage stage, final long items, final long bytes) {
+        Long startTime = startTimes.remove(stage);
+        if (startTime == null) {
+            throw new IllegalStateException("Stage " + stage.getKey() + " wasn't started");
+        }
+        add(stage, System.nanoTime() - startTime, items, bytes);
+    }
+
+    /**
+     * Adds to stage which is run in parts, e.g. matching of every read message.
+     */
+    public void add(final Stage stage, final long nanos, final long items, final long bytes) {
+        StageMetrics metrics = stages.get(stage);
+        if (metrics == null) {
+            metrics = new StageMetrics();
+            stages.put(stage, metrics);
+        }
+        metrics.nanos += nanos;
+        metrics.items += items;
+        metrics.bytes += bytes;
+    }
+
+    /**
+     * Wraps consumer of messages so log walk gets number of commits and size of read messages and id matching gets time
+     * spent in given consumer. Keys are passed to given consumer when it's {@link SCMFacade.KeyConsumer}. As messages
+     * are matched while history is read, log walk is finished with {@link #finishLogWalk(MeasuringConsumer)} which
+     * leaves matching time out of it.
+     */
+    public MeasuringConsumer measure(final SCMFacade.MessageConsumer consumer) {
+        start(Stage.LOG_WALK);
+        return new MeasuringConsumer(consumer);
+    }
+
+    public void finishLogWalk(final MeasuringConsumer consumer) {
+        finish(Stage.LOG_WALK, consumer.commits, consumer.chars);
+        add(Stage.LOG_WALK, -consumer.matchingNanos, 0, 0);
+        add(Stage.ID_MATCHING, consumer.matchingNanos, 0, 0);
+    }
+
+    public boolean contains(final Stage stage) {
+        return stages.containsKey(stage);
+    }
+
+    public long getMillis(final Stage stage) {
+        return contains(stage) ? TimeUnit.NANOSECONDS.toMillis(stages.get(stage).nanos) : 0;
+    }
+
+    public long getItems(final Stage stage) {
+        return contains(stage) ? stages.get(stage).items : 0;
+    }
+
+    public long getBytes(final Stage stage) {
+        return contains(stage) ? stages.get(stage).bytes : 0;
+    }
+
+    public long getTotalMillis() {
+        long nanos = 0;
+        for (StageMetrics metrics : stages.values()) {
+            nanos += metrics.nanos;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    public void log(final Logger logger) {
+        long total = Math.max(1, getTotalMillis());
+        for (Stage stage : stages.keySet()) {
+            //percent rounded to one decimal place
+            logger.info("Stage {} took {} ms ({}%), items: {}, bytes: {}", stage.getKey(), getMillis(stage),
+                    Math.round(1000.0 * getMillis(stage) / total) / 10.0, getItems(stage), getBytes(stage));
+        }
+        logger.info("All stages took {} ms", getTotalMillis());
+    }
+
+    /**
+     * @return {"totalMillis":n,"stages":{"gitSync":{"millis":n,"items":n,"bytes":n},...}}
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"totalMillis\":").append(getTotalMillis()).append(",\"stages\":{");
+        for (Stage stage : stages.keySet()) {
+            if (json.charAt(json.length() - 1) != '{') {
+                json.append(',');
+            }
+            json.append('"').append(stage.getKey()).append("\":{\"millis\":").append(getMillis(stage))
+                    .append(",\"items\":").append(getItems(stage))
+                    .append(",\"bytes\":").append(getBytes(stage)).append('}');
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Writes metrics as json next to report, file is named after report with '-metrics.json' suffix.
+     */
+    public File write(final File report) {
+        String name = report.getName();
+        int extension = name.lastIndexOf('.');
+        File file = new File(report.getParentFile(), (extension > 0 ? name.substring(0, extension) : name) + "-metrics.json");
+        try {
+            FileUtils.writeStringToFile(file, toJson(), "UTF-8");
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReleaseNotesMetrics" + toJson();
+    }
+
+    public static class MeasuringConsumer implements SCMFacade.KeyConsumer {
+
+        private final SCMFacade.MessageConsumer consumer;
+        private long commits;
+        private long chars;
+        private long matchingNanos;
+
+        MeasuringConsumer(final SCMFacade.MessageConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void consume(final String message) {
+            commits++;
+            chars += message.length();
+            long startTime = System.nanoTime();
+            consumer.consume(message);
+            matchingNanos += System.nanoTime() - startTime;
+        }
+
+        @Override
+        public String signature() {
+            return consumer instanceof SCMFacade.KeyConsumer ? ((SCMFacade.KeyConsumer) consumer).signature() : null;
+        }
+
+        @Override
+        public Set<String> findKeys(final byte[] raw, final int messageStart, final Charset encoding) {
+            chars += raw.length - messageStart;
+            long startTime = System.nanoTime();
+            Set<String> keys = ((SCMFacade.KeyConsumer) consumer).findKeys(raw, messageStart, encoding);
+            matchingNanos += System.nanoTime() - startTime;
+            return keys;
+        }
+
+        @Override
+        public void consumeKeys(final Set<String> keys) {
+            commits++;
+            long startTime = System.nanoTime();
+            ((SCMFacade.KeyConsumer) consumer).consumeKeys(keys);
+            matchingNanos += System.nanoTime() - startTime;
+        }
+    }
+
+    private static class StageMetrics {
+        long nanos;
+        long items;
+        long bytes;
+    }
+}
@@ -4,6 +4,8 @@
 package com.infusion.relnotesgen;
 
 import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Date;
 import java.util.Set;
 
 
@@ -16,9 +18,55 @@ public interface SCMFacade {
     Response readByTag(final String tag1, final String tag2);
     Response readLatestReleasedVersion();
     Response readByCommit(final String commitId1, final String commitId2);
+
+    /**
+     * Reads commits committed between given dates (both inclusive), null date leaves range open on that side.
+     */
+    Response readByDate(final Date since, final Date until);
+
+    /**
+     * Streaming variants pass messages to consumer as commits are read instead of collecting them.
+     *
+     * @return version of latest commit in read history
+     */
+    String readByTag(final String tag1, final String tag2, final MessageConsumer consumer);
+    String readLatestReleasedVersion(final MessageConsumer consumer);
+    String readByCommit(final String commitId1, final String commitId2, final MessageConsumer consumer);
+    String readByDate(final Date since, final Date until, final MessageConsumer consumer);
+
     boolean pushReleaseNotes(final File releaseNotes, final String version);
     void close();
 
+    /**
+     * Receives full commit messages one by one, message is not kept by scm after it's consumed.
+     */
+    public interface MessageConsumer {
+        void consume(final String message);
+    }
+
+    /**
+     * Consumer which finds keys (e.g. jira issue ids) in messages separately from consuming them, so scm can keep keys
+     * of every read commit in index and pass keys of already indexed commits without reading their messages again.
+     * Keys are searched in raw bytes of message so message doesn't have to be decoded.
+     */
+    public interface KeyConsumer extends MessageConsumer {
+
+        /**
+         * @return text which changes whenever keys would be found differently, stored keys are dropped when it changes,
+         *         null when keys can't be found separately and messages have to be consumed
+         */
+        String signature();
+
+        /**
+         * @param raw buffer with message from messageStart to its end, e.g. raw commit object
+         * @param encoding encoding of message
+         * @return keys found in message, empty set when there are none
+         */
+        Set<String> findKeys(final byte[] raw, final int messageStart, final Charset encoding);
+
+        void consumeKeys(final Set<String> keys);
+    }
+
     public static class Response {
         public final Set<String> messages;
         public final String version;
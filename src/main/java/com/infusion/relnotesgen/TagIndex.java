@@ -0,0 +1,281 @@
+package com.infusion.relnotesgen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevTag;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maps tag name to commit it points to and date of tag, tags are looked up by exact name. Index is stored in git
+ * directory so following runs don't parse tag objects again. Stored index is used as it is while packed-refs file and
+ * loose tag refs don't change, otherwise only tags which were added or moved are parsed.
+ *
+ * @author trojek
+ *
+ */
+class TagIndex {
+
+    private final static Logger logger = LoggerFactory.getLogger(Configuration.LOGGER_NAME);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String INDEX_FILE = "relnotesgen-tagindex";
+    private static final String SEPARATOR = "\t";
+    /**
+     * Orders tags by date, tags with the same date by name so selection doesn't depend on order of refs
+     */
+    private static final Comparator<Entry> BY_DATE = new Comparator<Entry>() {
+
+        @Override
+        public int compare(final Entry a, final Entry b) {
+            int byDate = Long.compare(a.date, b.date);
+            return byDate != 0 ? byDate : a.name.compareTo(b.name);
+        }
+    };
+
+    private final Map<String, Entry> entries;
+    private final int parsedTags;
+
+    private TagIndex(final Map<String, Entry> entries, final int parsedTags) {
+        this.entries = entries;
+        this.parsedTags = parsedTags;
+    }
+
+    static TagIndex load(final Repository repository) throws IOException {
+        long startTime = System.currentTimeMillis();
+        File indexFile = new File(repository.getDirectory(), INDEX_FILE);
+        String stamp = stamp(repository);
+
+        Map<String, Entry> stored = new HashMap<>();
+        String storedStamp = read(indexFile, stored);
+        if (stamp.equals(storedStamp)) {
+            logger.info("Tag index with {} tags read from {} in {} milis", stored.size(), indexFile.getAbsolutePath(), System.currentTimeMillis() - startTime);
+            return new TagIndex(stored, 0);
+        }
+
+        Map<String, Entry> entries = new HashMap<>();
+        int parsedTags = 0;
+        RevWalk walk = new RevWalk(repository);
+        try {
+            for (Ref ref : repository.getRefDatabase().getRefs(Constants.R_TAGS).values()) {
+                String name = ref.getName().substring(Constants.R_TAGS.length());
+                Entry entry = stored.get(name);
+                if (entry == null || !entry.objectId.equals(ref.getObjectId())) {
+                    entry = parse(walk, name, ref.getObjectId());
+                    parsedTags++;
+                }
+                if (entry != null) {
+                    entries.put(name, entry);
+                }
+            }
+        } finally {
+            walk.release();
+        }
+        write(indexFile, stamp, entries.values());
+        logger.info("Tag index with {} tags built in {} milis, {} tags parsed", entries.size(), System.currentTimeMillis() - startTime, parsedTags);
+        return new TagIndex(entries, parsedTags);
+    }
+
+    /**
+     * @param tagName short tag name or full name with refs/tags/ prefix
+     * @return entry of tag with exactly given name or null if there is no such tag
+     */
+    Entry get(final String tagName) {
+        return entries.get(tagName.startsWith(Constants.R_TAGS) ? tagName.substring(Constants.R_TAGS.length()) : tagName);
+    }
+
+    Collection<Entry> entries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Selects tags with min-heap of given size so only that many tags are kept while all are checked.
+     *
+     * @param namePattern only tags with name matching it are selected, null means all tags
+     * @return at most count latest tags, the latest one first
+     */
+    List<Entry> latest(final int count, final Pattern namePattern) {
+        PriorityQueue<Entry> heap = new PriorityQueue<>(count + 1, BY_DATE);
+        for (Entry entry : entries.values()) {
+            if (namePattern != null && !namePattern.matcher(entry.name).matches()) {
+                continue;
+            }
+            if (heap.size() < count) {
+                heap.offer(entry);
+            } else if (BY_DATE.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(entry);
+            }
+        }
+        List<Entry> latest = new ArrayList<>(heap);
+        Collections.sort(latest, Collections.reverseOrder(BY_DATE));
+        return latest;
+    }
+
+    /**
+     * @param glob tag name pattern where '*' matches any text and '?' any single character, e.g. v*
+     * @return pattern matching tag names or null for blank glob
+     */
+    static Pattern namePattern(final String glob) {
+        if (StringUtils.isBlank(glob)) {
+            return null;
+        }
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.trim().toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    int parsedTags() {
+        return parsedTags;
+    }
+
+    /**
+     * Annotated tag is dated by its tagger, lightweight one by commit it points to. Tags not pointing to commit are
+     * skipped.
+     */
+    private static Entry parse(final RevWalk walk, final String name, final ObjectId objectId) throws IOException {
+        RevObject object = walk.parseAny(objectId);
+        RevObject peeled = walk.peel(object);
+        if (!(peeled instanceof RevCommit)) {
+            logger.info("Tag {} doesn't point to commit, skipping it", name);
+            return null;
+        }
+        RevCommit commit = (RevCommit) peeled;
+        PersonIdent tagger = object instanceof RevTag ? ((RevTag) object).getTaggerIdent() : null;
+        long date = tagger != null ? tagger.getWhen().getTime() : commit.getCommitterIdent().getWhen().getTime();
+        return new Entry(name, objectId.copy(), commit.getId().copy(), date);
+    }
+
+    /**
+     * Fetched tags are written as loose refs and packed later so both packed-refs and loose tag refs are part of stamp.
+     */
+    private static String stamp(final Repository repository) {
+        File packedRefs = new File(repository.getDirectory(), "packed-refs");
+        StringBuilder stamp = new StringBuilder()
+                .append(packedRefs.lastModified()).append(':').append(packedRefs.length());
+        List<File> looseTags = new ArrayList<>();
+        listFiles(new File(repository.getDirectory(), Constants.R_TAGS), looseTags);
+        long lastModified = 0;
+        for (File looseTag : looseTags) {
+            lastModified = Math.max(lastModified, looseTag.lastModified());
+        }
+        return stamp.append(':').append(looseTags.size()).append(':').append(lastModified).toString();
+    }
+
+    private static void listFiles(final File directory, final List<File> files) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                listFiles(child, files);
+            } else {
+                files.add(child);
+            }
+        }
+    }
+
+    /**
+     * Reads stored entries by tag name into given map.
+     *
+     * @return stamp of stored index or null when there is no index or it couldn't be read
+     */
+    private static String read(final File indexFile, final Map<String, Entry> entries) {
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(indexFile.toPath(), UTF_8);
+            if (lines.isEmpty()) {
+                return null;
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.split(SEPARATOR);
+                entries.put(fields[0], new Entry(fields[0], ObjectId.fromString(fields[1]), ObjectId.fromString(fields[2]), Long.parseLong(fields[3])));
+            }
+            return lines.get(0);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Couldn't read tag index {}, it will be built again. Cause: {}", indexFile.getAbsolutePath(), e.getMessage());
+            entries.clear();
+            return null;
+        }
+    }
+
+    private static void write(final File indexFile, final String stamp, final Collection<Entry> entries) {
+        List<String> lines = new ArrayList<>(entries.size() + 1);
+        lines.add(stamp);
+        for (Entry entry : entries) {
+            lines.add(entry.name + SEPARATOR + entry.objectId.getName() + SEPARATOR + entry.commitId.getName() + SEPARATOR + entry.date);
+        }
+        try {
+            File temp = File.createTempFile("tagindex", ".tmp", indexFile.getParentFile());
+            Files.write(temp.toPath(), lines, UTF_8);
+            Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Couldn't store tag index {}. Cause: {}", indexFile.getAbsolutePath(), e.getMessage());
+        }
+    }
+
+    static class Entry {
+        /**
+         * Tag name without refs/tags/ prefix
+         */
+        final String name;
+        /**
+         * Object tag ref points to, annotated tag or commit
+         */
+        final ObjectId objectId;
+        /**
+         * Commit tag points to after peeling
+         */
+        final ObjectId commitId;
+        /**
+         * Date of tag in milis
+         */
+        final long date;
+
+        Entry(final String name, final ObjectId objectId, final ObjectId commitId, final long date) {
+            this.name = name;
+            this.objectId = objectId;
+            this.commitId = commitId;
+            this.date = date;
+        }
+    }
+}
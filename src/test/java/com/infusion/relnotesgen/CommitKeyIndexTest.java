@@ -0,0 +1,119 @@
+package com.infusion.relnotesgen;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.infusion.relnotesgen.util.RecordingKeyConsumer;
+import com.infusion.relnotesgen.util.TestGitRepo;
+
+/**
+ * @author trojek
+ *
+ */
+public class CommitKeyIndexTest {
+
+    private TestGitRepo testGitRepo;
+    private File tempRepo;
+    private int readMessages;
+
+    @Before
+    public void createRepo() throws IOException {
+        testGitRepo = new TestGitRepo();
+        tempRepo = Files.createTempDirectory("TestKeyIndexGitRepo").toFile();
+    }
+
+    @After
+    public void cleanRepo() throws IOException {
+        FileUtils.deleteDirectory(tempRepo);
+        testGitRepo.clean();
+    }
+
+    @Test
+    public void secondReadTakesKeysFromIndex() {
+        // Given
+        Set<String> firstIds = readByTag("SYM-\\d+", "1.3", "1.4");
+
+        // When
+        Set<String> secondIds = readByTag("SYM-\\d+", "1.3", "1.4");
+
+        // Then
+        assertThat(readMessages, equalTo(0));
+        assertThat(secondIds, equalTo(firstIds));
+        assertThat(secondIds, hasItems("SYM-33", "SYM-41", "SYM-42", "SYM-43"));
+    }
+
+    @Test
+    public void onlyNewCommitIsReadAfterFetch() {
+        // Given
+        readByTag("SYM-\\d+", "1.3", null);
+        testGitRepo.commitInOrigin("SYM-99 added after release");
+
+        // When
+        Set<String> ids = readByTag("SYM-\\d+", "1.3", null);
+
+        // Then
+        assertThat(readMessages, equalTo(1));
+        assertThat(ids, hasItems("SYM-33", "SYM-43", "SYM-99"));
+    }
+
+    @Test
+    public void indexIsBuiltAgainWhenPatternChanges() {
+        // Given
+        readByTag("SYM-\\d+", "1.3", "1.4");
+
+        // When
+        Set<String> ids = readByTag("SYM-4\\d", "1.3", "1.4");
+
+        // Then
+        assertThat(readMessages, equalTo(4));
+        assertThat(ids, equalTo((Set<String>) new HashSet<>(Arrays.asList("SYM-41", "SYM-42", "SYM-43"))));
+    }
+
+    @Test
+    public void keysWithSeparatorsAreReadAsStored() {
+        // Given
+        ObjectId commitId = ObjectId.fromString("6f8d0d5c2c4b0e9a3c4b8f1e2d3a4b5c6d7e8f90");
+        Set<String> keys = new HashSet<>(Arrays.asList("SYM-1,SYM-2", "SYM-3\tSYM-4", "SYM-5\nSYM-6", "SYM-7\\t", "SYM-8"));
+        CommitKeyIndex index = CommitKeyIndex.load(tempRepo, "pattern");
+        index.get(commitId);
+        index.put(commitId, keys);
+        index.store();
+
+        // When
+        Set<String> storedKeys = CommitKeyIndex.load(tempRepo, "pattern").get(commitId);
+
+        // Then
+        assertThat(storedKeys, equalTo(keys));
+    }
+
+    private Set<String> readByTag(final String pattern, final String tag1, final String tag2) {
+        final Set<String> ids = new HashSet<>();
+        RecordingKeyConsumer consumer = new RecordingKeyConsumer(new JiraIssueIdMatcher(pattern).collectJiraIds(ids));
+        GitFacade gitFacade = new GitFacade(testGitRepo.configuration()
+                .gitDirectory(tempRepo.getAbsolutePath())
+                .bare(true)
+                .keyIndex(true)
+                .build());
+        try {
+            gitFacade.readByTag(tag1, tag2, consumer);
+        } finally {
+            gitFacade.close();
+        }
+        readMessages = consumer.getScannedMessages();
+        return ids;
+    }
+}
@@ -0,0 +1,127 @@
+package com.infusion.relnotesgen;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.infusion.relnotesgen.util.TestGitRepo;
+
+/**
+ * @author trojek
+ *
+ */
+public class GitBareRepositoryTest {
+
+    private static TestGitRepo testGitRepo = new TestGitRepo();
+
+    private GitFacade gitMessageReader;
+    private File tempRepo;
+
+    @Before
+    public void cloneRepo() throws IOException {
+        tempRepo = Files.createTempDirectory("TestBareGitRepo").toFile();
+    }
+
+    @After
+    public void cleanRepo() throws IOException {
+        gitMessageReader.close();
+        FileUtils.deleteDirectory(tempRepo);
+    }
+
+    @AfterClass
+    public static void removeTestGitRepo() throws IOException {
+        testGitRepo.clean();
+    }
+
+    @Test
+    public void bareCloneHasNoWorkingTree() {
+        // Given
+        gitMessageReader = bareGitFacade("master");
+
+        // When
+        SCMFacade.Response gitInfo = gitMessageReader.readByTag("1.3", "1.4");
+
+        // Then
+        assertThat(new File(tempRepo, "pom.xml").exists(), equalTo(false));
+        assertThat(new File(tempRepo, "HEAD").exists(), equalTo(true));
+        assertThat(gitInfo.messages, hasSize(4));
+        assertThat(gitInfo.messages, hasItems("SYM-33 release of version 1.3\n", "SYM-41 prepare for version 1.4\n",
+                "SYM-42 prepare for version 1.4 part 2\n", "SYM-43 releas of version 1.4\n"));
+        assertThat(gitInfo.version, equalTo("1.4"));
+    }
+
+    @Test
+    public void readLatestReleasedVersionFromBareRepository() {
+        // Given
+        gitMessageReader = bareGitFacade("master");
+
+        // When
+        SCMFacade.Response gitInfo = gitMessageReader.readLatestReleasedVersion();
+
+        // Then
+        assertThat(gitInfo.messages, hasSize(4));
+        assertThat(gitInfo.version, equalTo("1.4"));
+    }
+
+    @Test
+    public void readConfiguredBranchOfExistingBareRepository() {
+        // Given
+        bareGitFacade("master").close();
+
+        // When
+        gitMessageReader = bareGitFacade("branch1");
+        Set<String> messages = gitMessageReader.readByCommit("2ea0809c55657bc528933e6fda3a7772cacf8279", null).messages;
+
+        // Then
+        assertThat(messages, hasSize(1));
+        assertThat(messages, hasItems("SYM-4 changed dummy file on branch1 branch\n"));
+    }
+
+    @Test
+    public void pushReleaseNotesFromBareRepository() throws IOException {
+        // Given
+        gitMessageReader = bareGitFacade("master");
+        File tempReleaseNotes = File.createTempFile("ReleaseNotes", null);
+        FileUtils.writeStringToFile(tempReleaseNotes, "Bare release notes for version 1.4");
+
+        // When
+        boolean successfull = gitMessageReader.pushReleaseNotes(tempReleaseNotes, "1.4");
+        boolean repeated = gitMessageReader.pushReleaseNotes(tempReleaseNotes, "1.4");
+
+        // Then
+        assertThat(successfull, equalTo(true));
+        assertThat(repeated, equalTo(false));
+        File repoWithNotes = Files.createTempDirectory("TestCloneGitRepoWithReleaseNotes").toFile();
+        try {
+            new GitFacade(testGitRepo.configuration()
+                    .gitDirectory(repoWithNotes.getAbsolutePath())
+                    .build()).close();
+            File releaseNotes = new File(repoWithNotes, "releases/" + tempReleaseNotes.getName());
+            assertThat(Files.readAllLines(releaseNotes.toPath(), Charset.forName("UTF-8")).get(0), equalTo("Bare release notes for version 1.4"));
+            assertThat(new File(repoWithNotes, "pom.xml").exists(), equalTo(true));
+        } finally {
+            FileUtils.deleteDirectory(repoWithNotes);
+        }
+    }
+
+    private GitFacade bareGitFacade(final String branch) {
+        return new GitFacade(testGitRepo.configuration()
+                .gitDirectory(tempRepo.getAbsolutePath())
+                .branch(branch)
+                .bare(true)
+                .build());
+    }
+}
@@ -0,0 +1,107 @@
+package com.infusion.relnotesgen;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItems;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.infusion.relnotesgen.util.TestGitRepo;
+
+/**
+ * @author trojek
+ *
+ */
+public class GitFetchOnlySyncTest {
+
+    private static TestGitRepo testGitRepo = new TestGitRepo();
+
+    private GitFacade gitMessageReader;
+    private File tempRepo;
+
+    @Before
+    public void cloneRepo() throws IOException {
+        tempRepo = Files.createTempDirectory("TestFetchOnlyGitRepo").toFile();
+        new GitFacade(testGitRepo.configuration()
+                .gitDirectory(tempRepo.getAbsolutePath())
+                .build()).close();
+    }
+
+    @After
+    public void cleanRepo() throws IOException {
+        gitMessageReader.close();
+        FileUtils.deleteDirectory(tempRepo);
+    }
+
+    @AfterClass
+    public static void removeTestGitRepo() throws IOException {
+        testGitRepo.clean();
+    }
+
+    @Test
+    public void fetchOnlyReadsNewCommitsWithoutTouchingWorkingTree() throws IOException {
+        // Given
+        String commitId = testGitRepo.commitInOrigin("SYM-50 commit fetched without pull\n");
+        File pomXml = new File(tempRepo, "pom.xml");
+        long lastModified = pomXml.lastModified();
+
+        // When
+        gitMessageReader = new GitFacade(testGitRepo.configuration()
+                .gitDirectory(tempRepo.getAbsolutePath())
+                .fetchOnly(true)
+                .build());
+        Set<String> messages = gitMessageReader.readByCommit(commitId, null).messages;
+
+        // Then
+        assertThat(messages, hasItems("SYM-50 commit fetched without pull\n"));
+        assertThat(pomXml.lastModified(), equalTo(lastModified));
+        assertThat(gitMessageReader.getSyncedObjects(), greaterThan(0L));
+        assertThat(gitMessageReader.getSyncedBytes(), greaterThan(0L));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void fetchIsSkippedWithinFreshnessWindow() {
+        // Given
+        String commitId = testGitRepo.commitInOrigin("SYM-51 commit not fetched yet\n");
+
+        // When
+        gitMessageReader = new GitFacade(testGitRepo.configuration()
+                .gitDirectory(tempRepo.getAbsolutePath())
+                .fetchOnly(true)
+                .fetchFreshness(3600)
+                .build());
+
+        // Then
+        assertThat(gitMessageReader.getSyncedObjects(), equalTo(0L));
+        gitMessageReader.readByCommit(commitId, null);
+    }
+
+    @Test
+    public void pushReleaseNotesFromFetchOnlyRepository() throws IOException {
+        // Given
+        testGitRepo.commitInOrigin("SYM-52 commit before release notes\n");
+        gitMessageReader = new GitFacade(testGitRepo.configuration()
+                .gitDirectory(tempRepo.getAbsolutePath())
+                .fetchOnly(true)
+                .build());
+        File tempReleaseNotes = File.createTempFile("ReleaseNotes", null);
+        FileUtils.writeStringToFile(tempReleaseNotes, "Fetch only release notes");
+
+        // When
+        boolean successfull = gitMessageReader.pushReleaseNotes(tempReleaseNotes, "1.5");
+
+        // Then
+        assertThat(successfull, equalTo(true));
+        assertThat(new File(tempRepo, "releases/" + tempReleaseNotes.getName()).exists(), equalTo(false));
+    }
+}
@@ -0,0 +1,123 @@
+package com.infusion.relnotesgen;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.infusion.relnotesgen.util.TestGitRepo;
+
+/**
+ * master:  1.4 --- merge
+ *                 /
+ * branch1: SYM-4 (forked from SYM-3, long before 1.1)
+ *
+ * @author trojek
+ *
+ */
+public class GitMessageReadingOfMergesTest {
+
+    private static final String MERGE_MESSAGE = "SYM-50 merge branch1 into master\n";
+
+    private TestGitRepo testGitRepo;
+    private GitFacade gitMessageReader;
+    private String mergeCommitId;
+
+    @Before
+    public void prepareRepoWithMerge() {
+        testGitRepo = new TestGitRepo();
+        mergeCommitId = testGitRepo.merge(MERGE_MESSAGE, "refs/remotes/origin/branch1");
+        gitMessageReader = new GitFacade(testGitRepo.configuration().build());
+    }
+
+    @After
+    public void removeTestGitRepo() {
+        gitMessageReader.close();
+        testGitRepo.clean();
+    }
+
+    @Test
+    public void rangeContainsCommitsOfMergedBranchOlderThanRangeStart() {
+        // Given
+        String commitId1 = "1a90539f98c6699cc100d811fb3edac73fba9748";
+
+        // When
+        SCMFacade.Response gitInfo = gitMessageReader.readByCommit(commitId1, mergeCommitId);
+
+        // Then
+        assertThat(gitInfo.messages, containsInAnyOrder(MERGE_MESSAGE, "SYM-43 releas of version 1.4\n", "SYM-4 changed dummy file on branch1 branch\n"));
+        assertThat(gitInfo.version, equalTo("1.4"));
+    }
+
+    @Test
+    public void rangeDoesntContainCommitsReachableFromRangeStart() {
+        // Given
+        String commitId1 = "043d9b3fcac01a1aff6d78e7407babfb1d3d3f92";
+
+        // When
+        SCMFacade.Response gitInfo = gitMessageReader.readByCommit(mergeCommitId, commitId1);
+
+        // Then
+        assertThat(gitInfo.messages, containsInAnyOrder(MERGE_MESSAGE, "SYM-42 prepare for version 1.4 part 2\n",
+                "SYM-43 releas of version 1.4\n", "SYM-4 changed dummy file on branch1 branch\n"));
+    }
+
+    @Test
+    public void firstParentRangeDoesntContainCommitsOfMergedBranch() {
+        // Given
+        String commitId1 = "043d9b3fcac01a1aff6d78e7407babfb1d3d3f92";
+        GitFacade firstParentReader = new GitFacade(testGitRepo.configuration().firstParent(true).build());
+
+        // When
+        SCMFacade.Response gitInfo = firstParentReader.readByCommit(mergeCommitId, commitId1);
+        firstParentReader.close();
+
+        // Then
+        assertThat(gitInfo.messages, containsInAnyOrder(MERGE_MESSAGE, "SYM-42 prepare for version 1.4 part 2\n",
+                "SYM-43 releas of version 1.4\n"));
+        assertThat(gitInfo.version, equalTo("1.4"));
+    }
+
+    @Test
+    public void firstParentRangeWithoutMergesContainsOnlyCommitsMadeOnMaster() {
+        // Given
+        String commitId1 = "043d9b3fcac01a1aff6d78e7407babfb1d3d3f92";
+        GitFacade firstParentReader = new GitFacade(testGitRepo.configuration().firstParent(true).firstParentMerges(false).build());
+
+        // When
+        SCMFacade.Response gitInfo = firstParentReader.readByCommit(mergeCommitId, commitId1);
+        firstParentReader.close();
+
+        // Then
+        assertThat(gitInfo.messages, containsInAnyOrder("SYM-42 prepare for version 1.4 part 2\n", "SYM-43 releas of version 1.4\n"));
+    }
+
+    @Test
+    public void firstParentRangeFromMergedBranchEndsWhereBranchWasForked() {
+        // Given
+        GitFacade firstParentReader = new GitFacade(testGitRepo.configuration().firstParent(true).build());
+
+        // When
+        SCMFacade.Response gitInfo = firstParentReader.readByCommit("refs/remotes/origin/branch1", mergeCommitId);
+        firstParentReader.close();
+
+        // Then
+        //merge and 13 commits of master committed after branch1 was forked from SYM-3
+        assertThat(gitInfo.messages, hasSize(1 + 13));
+        assertThat(gitInfo.messages, hasItem(MERGE_MESSAGE));
+        assertThat(gitInfo.messages, hasItem("SYM-10 added pom.xml\n"));
+        assertThat(gitInfo.messages, not(hasItem("SYM-4 changed dummy file on branch1 branch\n")));
+        assertThat(gitInfo.messages, not(hasItem("SYM-3 changed dummy file for third time\n")));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void commitsNotOnOneLineOfHistoryAreRejected() {
+        gitMessageReader.readByCommit("2ea0809c55657bc528933e6fda3a7772cacf8279", "1a90539f98c6699cc100d811fb3edac73fba9748");
+    }
+}
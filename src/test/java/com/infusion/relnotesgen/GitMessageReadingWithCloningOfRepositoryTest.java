@@ -1,14 +1,18 @@
 package com.infusion.relnotesgen;
 
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
@@ -135,6 +139,87 @@ public class GitMessageReadingWithCloningOfRepositoryTest {
         assertThat(version, Matchers.equalTo("1.1-SNAPSHOT"));
     }
 
+    @Test
+    public void readVersionDoesNotTouchWorkingTree() throws IOException {
+        // Given
+        String commitId1 = "1c814546893dc5544f86ca87ca58f0d162c9ccd2";
+        String commitId2 = "4f4685dfcff6514558f08d3dd303bda4684f0ffd";
+        gitMessageReader = new GitFacade(testGitRepo.configuration()
+                .gitDirectory(tempRepo.getAbsolutePath())
+                .build());
+        File pomXml = new File(tempRepo, "pom.xml");
+        long lastModified = pomXml.lastModified();
+        String pomXmlContent = FileUtils.readFileToString(pomXml);
+
+        // When
+        gitMessageReader.readByCommit(commitId1, commitId2);
+
+        // Then
+        assertThat(pomXml.lastModified(), equalTo(lastModified));
+        assertThat(FileUtils.readFileToString(pomXml), equalTo(pomXmlContent));
+    }
+
+    @Test
+    public void cloneOnlyConfiguredBranchAndComputeRangeByTags() throws IOException {
+        // Given
+        gitMessageReader = new GitFacade(testGitRepo.configuration()
+                .gitDirectory(tempRepo.getAbsolutePath())
+                .build());
+
+        // When
+        SCMFacade.Response gitInfo = gitMessageReader.readByTag("1.3", "1.4");
+
+        // Then
+        File remoteBranches = new File(tempRepo, ".git/refs/remotes/origin");
+        assertThat(new File(remoteBranches, "master").exists(), equalTo(true));
+        assertThat(new File(remoteBranches, "branch1").exists(), equalTo(false));
+        assertThat(gitInfo.messages, hasSize(4));
+        assertThat(gitInfo.messages, hasItems("SYM-33 release of version 1.3\n", "SYM-41 prepare for version 1.4\n",
+                "SYM-42 prepare for version 1.4 part 2\n", "SYM-43 releas of version 1.4\n"));
+        assertThat(gitInfo.version, equalTo("1.4"));
+    }
+
+    @Test
+    public void cloneWithoutCheckoutForFetchOnlyRepository() throws IOException {
+        // Given
+        String commitId1 = "1c814546893dc5544f86ca87ca58f0d162c9ccd2";
+        String commitId2 = "4f4685dfcff6514558f08d3dd303bda4684f0ffd";
+
+        // When
+        gitMessageReader = new GitFacade(testGitRepo.configuration()
+                .gitDirectory(tempRepo.getAbsolutePath())
+                .fetchOnly(true)
+                .build());
+        String version = gitMessageReader.readByCommit(commitId1, commitId2).version;
+
+        // Then
+        assertThat(new File(tempRepo, "pom.xml").exists(), equalTo(false));
+        assertThat(version, equalTo("1.1-SNAPSHOT"));
+    }
+
+    @Test
+    public void streamMessagesOfRangeByTags() {
+        // Given
+        gitMessageReader = new GitFacade(testGitRepo.configuration()
+                .gitDirectory(tempRepo.getAbsolutePath())
+                .build());
+        final List<String> messages = new ArrayList<>();
+
+        // When
+        String version = gitMessageReader.readByTag("1.3", "1.4", new SCMFacade.MessageConsumer() {
+
+            @Override
+            public void consume(final String message) {
+                messages.add(message);
+            }
+        });
+
+        // Then
+        assertThat(messages, containsInAnyOrder("SYM-33 release of version 1.3\n", "SYM-41 prepare for version 1.4\n",
+                "SYM-42 prepare for version 1.4 part 2\n", "SYM-43 releas of version 1.4\n"));
+        assertThat(version, equalTo("1.4"));
+    }
+
     @Test
     public void readByTagWithTwoNeighbourTags() {
         // Given
@@ -205,4 +290,34 @@ public class GitMessageReadingWithCloningOfRepositoryTest {
         assertThat(messages, hasItems("SYM-33 release of version 1.3\n", "SYM-41 prepare for version 1.4\n", "SYM-42 prepare for version 1.4 part 2\n", "SYM-43 releas of version 1.4\n"));
         assertThat(gitInfo.version, equalTo("1.4"));
     }
+
+    @Test
+    public void readLatestReleasedVersionIgnoresTagsNotMatchingPattern() throws IOException {
+        // Given
+        TestGitRepo taggedRepo = new TestGitRepo();
+        taggedRepo.tagInOrigin("nightly-60", taggedRepo.commitInOrigin("SYM-60 nightly build\n"));
+        File allTagsRepo = Files.createTempDirectory("TestAllTagsGitRepo").toFile();
+        try {
+            gitMessageReader = new GitFacade(taggedRepo.configuration()
+                    .gitDirectory(tempRepo.getAbsolutePath())
+                    .tagPattern("1.*")
+                    .build());
+            GitFacade allTagsReader = new GitFacade(taggedRepo.configuration()
+                    .gitDirectory(allTagsRepo.getAbsolutePath())
+                    .build());
+
+            // When
+            Set<String> messages = gitMessageReader.readLatestReleasedVersion().messages;
+            Set<String> allTagsMessages = allTagsReader.readLatestReleasedVersion().messages;
+            allTagsReader.close();
+
+            // Then
+            assertThat(messages, hasSize(4));
+            assertThat(messages, not(hasItems("SYM-60 nightly build\n")));
+            assertThat(allTagsMessages, hasItems("SYM-60 nightly build\n"));
+        } finally {
+            FileUtils.deleteDirectory(allTagsRepo);
+            taggedRepo.clean();
+        }
+    }
 }
@@ -3,21 +3,27 @@ package com.infusion.relnotesgen;
 import static com.xebialabs.restito.builder.verify.VerifyHttp.verifyHttp;
 import static com.xebialabs.restito.semantics.Condition.get;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -25,7 +31,12 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import com.atlassian.jira.rest.client.domain.Issue;
+import com.google.common.base.Predicate;
+import com.infusion.relnotesgen.util.StubJiraServer;
+import com.infusion.relnotesgen.util.StubJiraServer.Latency;
 import com.infusion.relnotesgen.util.StubedJiraIssue;
+import com.xebialabs.restito.semantics.Call;
+import com.xebialabs.restito.semantics.Condition;
 import com.xebialabs.restito.server.StubServer;
 
 /**
@@ -228,6 +239,362 @@ public class JiraIssueDaoTest {
         assertIssueContainsExactly(issues, "SYM-43", "SYM-42", "SYM-41");
     }
 
+    @Test
+    public void concurrentFetchOverlapsRequests() {
+        //Given
+        StubJiraServer generatedJira = new StubJiraServer().issues("GEN", 4).latency(Latency.fixed(200)).start();
+        when(configuration.getJiraUrl()).thenReturn(generatedJira.getUrl());
+        when(configuration.getJiraFetchThreads()).thenReturn(4);
+        when(configuration.getJiraFetchInFlight()).thenReturn(4);
+        when(configuration.getJiraConnectionsMax()).thenReturn(4);
+
+        //When
+        Collection<Issue> issues;
+        try {
+            issues = jiraIssueDao().findIssues(generatedKeys("GEN", 4));
+        } finally {
+            generatedJira.stop();
+        }
+
+        //Then
+        assertThat(issues, hasSize(4));
+        assertThat(generatedJira.getIssueRequests(), is(4));
+        assertThat(generatedJira.getMaxConcurrentRequests(), greaterThan(1));
+    }
+
+    @Test
+    public void concurrentFetchProceedsWith404AndFilters() throws IOException, URISyntaxException {
+        //Given
+        String[] issueIds = {"SYM-43", "SYM-42", "SYM-41", "SYM-32", "NOT-EXISTING"};
+        StubedJiraIssue.stubExistingIssueWithLatency(jira, 100, "SYM-43", "SYM-42", "SYM-41", "SYM-32");
+        stubNotExistingIssue("NOT-EXISTING");
+
+        when(configuration.getJiraFetchThreads()).thenReturn(3);
+        when(configuration.getJiraFetchInFlight()).thenReturn(3);
+        when(configuration.getIssueFilterByType()).thenReturn("Feature,Task");
+
+        //When
+        Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+        //Then
+        verifyIssueWasRequested(issueIds);
+        assertIssueContainsExactly(issues, "SYM-41", "SYM-32");
+    }
+
+    @Test
+    public void concurrentFetchOfManyIssuesIsLimitedByNumberOfThreads() {
+        //Given
+        StubJiraServer generatedJira = new StubJiraServer().issues("GEN", 40).latency(Latency.uniform(10, 30)).start();
+        when(configuration.getJiraUrl()).thenReturn(generatedJira.getUrl());
+        when(configuration.getJiraFetchThreads()).thenReturn(4);
+        when(configuration.getJiraFetchInFlight()).thenReturn(8);
+        when(configuration.getJiraConnectionsMax()).thenReturn(4);
+
+        //When
+        Collection<Issue> issues;
+        try {
+            issues = jiraIssueDao().findIssues(generatedKeys("GEN", 40));
+        } finally {
+            generatedJira.stop();
+        }
+
+        //Then
+        assertThat(issues, hasSize(40));
+        assertThat(generatedJira.getIssueRequests(), is(40));
+        assertThat(generatedJira.getMaxConcurrentRequests(), lessThanOrEqualTo(4));
+    }
+
+    @Test
+    public void searchOfManyIssuesAsksForPagesOfChunkSize() {
+        //Given
+        StubJiraServer generatedJira = new StubJiraServer().issues("GEN", 25).start();
+        when(configuration.getJiraUrl()).thenReturn(generatedJira.getUrl());
+        when(configuration.getJiraSearchChunkSize()).thenReturn(10);
+
+        //When
+        Collection<Issue> issues;
+        try {
+            issues = jiraIssueDao().findIssues(generatedKeys("GEN", 25));
+        } finally {
+            generatedJira.stop();
+        }
+
+        //Then
+        assertThat(issues, hasSize(25));
+        assertThat(generatedJira.getSearchRequests(), is(3));
+        assertThat(generatedJira.getIssueRequests(), is(0));
+    }
+
+    @Test
+    public void searchResolvesIssuesWithoutQueryingThemOneByOne() throws IOException, URISyntaxException {
+        //Given
+        String[] issueIds = {"SYM-43", "SYM-42", "SYM-41", "SYM-32"};
+        StubedJiraIssue.stubSearch(jira, issueIds);
+
+        when(configuration.getJiraSearchChunkSize()).thenReturn(100);
+
+        //When
+        Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+        //Then
+        verifyHttp(jira).once(get(StubedJiraIssue.SEARCH_PATH));
+        for(String issueId : issueIds) {
+            verifyHttp(jira).never(get("/rest/api/latest/issue/" + issueId));
+        }
+        assertIssueContainsExactly(issues, issueIds);
+    }
+
+    @Test
+    public void searchAsksForChunksOfKeys() throws IOException, URISyntaxException {
+        //Given
+        String[] issueIds = {"SYM-43", "SYM-42", "SYM-41", "SYM-32"};
+        StubedJiraIssue.stubSearch(jira, issueIds);
+
+        when(configuration.getJiraSearchChunkSize()).thenReturn(3);
+
+        //When
+        Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+        //Then
+        verifyHttp(jira).times(2, get(StubedJiraIssue.SEARCH_PATH));
+        assertIssueContainsExactly(issues, issueIds);
+    }
+
+    @Test
+    public void issuesNotReturnedBySearchAreQueriedOneByOne() throws IOException, URISyntaxException {
+        //Given
+        String[] issueIds = {"SYM-43", "SYM-42", "SYM-41", "NOT-EXISTING"};
+        StubedJiraIssue.stubSearch(jira, "SYM-43", "SYM-42");
+        stubExistingIssue("SYM-41");
+        stubNotExistingIssue("NOT-EXISTING");
+
+        when(configuration.getJiraSearchChunkSize()).thenReturn(100);
+        when(configuration.getIssueFilterByType()).thenReturn("Bug");
+
+        //When
+        Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+        //Then
+        verifyHttp(jira).never(get("/rest/api/latest/issue/SYM-43"));
+        verifyIssueWasRequested("SYM-41", "NOT-EXISTING");
+        assertIssueContainsExactly(issues, "SYM-43", "SYM-42");
+    }
+
+    @Test
+    public void filtersAppliedByJiraGiveSameResultAsFiltersAppliedAfterFetch() throws IOException, URISyntaxException {
+        //Given
+        String[] issueIds = {"SYM-43", "SYM-42", "SYM-41", "SYM-32"};
+        stubExistingIssue(issueIds);
+        StubedJiraIssue.stubSearch(jira, issueIds);
+        StubedJiraIssue.stubSearchWithJqlContaining(jira, "status in (\"Ready for QA\",\"In Progress\")", "SYM-43", "SYM-42", "SYM-41");
+
+        when(configuration.getIssueFilterByStatus()).thenReturn("Ready for QA,In Progress");
+        Collection<Issue> fetchedIssues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+        //When
+        when(configuration.getJiraSearchChunkSize()).thenReturn(100);
+        Collection<Issue> searchedIssues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+        //Then
+        verifyIssueWasRequested(issueIds);
+        assertIssueContainsExactly(fetchedIssues, "SYM-43", "SYM-42", "SYM-41");
+        assertIssueContainsExactly(searchedIssues, "SYM-43", "SYM-42", "SYM-41");
+    }
+
+    @Test
+    public void searchFindsMovedIssueByItsPreviousKey() throws IOException, URISyntaxException {
+        //Given
+        StubedJiraIssue.stubSearch(jira, "SYM-43", "SYM-41");
+        StubedJiraIssue.stubSearchWithChangelog(jira, "SYM-41", "OLD-7");
+
+        when(configuration.getJiraSearchChunkSize()).thenReturn(100);
+
+        //When
+        Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList("SYM-43", "OLD-7")));
+
+        //Then
+        verifyHttp(jira).never(get("/rest/api/latest/issue/OLD-7"));
+        assertIssueContainsExactly(issues, "SYM-43", "SYM-41");
+    }
+
+    @Test
+    public void filteredSearchFindsMovedIssueAndFiltersIssuesItDidntReturn() throws IOException, URISyntaxException {
+        //Given
+        StubedJiraIssue.stubSearch(jira, "SYM-32");
+        StubedJiraIssue.stubSearchWithJqlContaining(jira, "status in (\"Ready for QA\",\"In Progress\")", "SYM-43", "SYM-41");
+        StubedJiraIssue.stubSearchWithChangelog(jira, "SYM-41", "OLD-7");
+
+        when(configuration.getJiraSearchChunkSize()).thenReturn(100);
+        when(configuration.getIssueFilterByStatus()).thenReturn("Ready for QA,In Progress");
+
+        //When
+        Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList("SYM-43", "OLD-7", "SYM-32")));
+
+        //Then
+        verifyHttp(jira).never(get("/rest/api/latest/issue/OLD-7"));
+        verifyHttp(jira).never(get("/rest/api/latest/issue/SYM-32"));
+        assertIssueContainsExactly(issues, "SYM-43", "SYM-41");
+    }
+
+    @Test
+    public void issuesRejectedByFilterJqlAreNeverDownloaded() throws IOException, URISyntaxException {
+        //Given
+        StubedJiraIssue.stubSearchWithUpdated(jira, "SYM-32", "2015-03-01T10:00:00.000+0000");
+        StubedJiraIssue.stubSearchWithJqlContaining(jira, "status in (\"Ready for QA\",\"In Progress\")", "SYM-43");
+
+        when(configuration.getJiraSearchChunkSize()).thenReturn(100);
+        when(configuration.getIssueFilterByStatus()).thenReturn("Ready for QA,In Progress");
+
+        //When
+        Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList("SYM-43", "SYM-32")));
+
+        //Then
+        verifyHttp(jira).never(get("/rest/api/latest/issue/SYM-32"));
+        verifyHttp(jira).never(get(StubedJiraIssue.SEARCH_PATH), Condition.custom(new Predicate<Call>() {
+
+            @Override
+            public boolean apply(final Call call) {
+                //search without filter may ask only for 'updated' field
+                String[] jql = call.getParameters().get("jql");
+                String[] fields = call.getParameters().get("fields");
+                return jql != null && !jql[0].contains("status") && (fields == null || !"updated".equals(fields[0]));
+            }
+        }));
+        assertIssueContainsExactly(issues, "SYM-43");
+    }
+
+    @Test
+    public void filtersNotExpressibleInJqlAreAppliedAfterSearch() throws IOException, URISyntaxException {
+        //Given
+        String[] issueIds = {"SYM-43", "SYM-42", "SYM-41", "SYM-32"};
+        StubedJiraIssue.stubSearch(jira, issueIds);
+
+        when(configuration.getJiraSearchChunkSize()).thenReturn(100);
+        when(configuration.getIssueFilterByLabel()).thenReturn("BUKA,gagatek");
+
+        //When
+        Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+        //Then
+        assertIssueContainsExactly(issues, "SYM-43", "SYM-32");
+    }
+
+    @Test
+    public void cachedIssuesAreNotQueriedAgain() throws IOException, URISyntaxException {
+        //Given
+        String[] issueIds = {"SYM-43", "SYM-42"};
+        stubExistingIssue(issueIds);
+        StubedJiraIssue.stubSearch(jira, issueIds);
+
+        File cacheDirectory = Files.createTempDirectory("TestIssueCache").toFile();
+        when(configuration.getJiraCacheDirectory()).thenReturn(cacheDirectory.getAbsolutePath());
+        when(configuration.getJiraCacheMaxAge()).thenReturn(1);
+        when(configuration.getJiraCacheMaxSize()).thenReturn(100);
+
+        try {
+            //When
+            jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+            Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+            //Then
+            verifyIssueWasRequested(issueIds);
+            verifyHttp(jira).once(get(StubedJiraIssue.SEARCH_PATH));
+            assertIssueContainsExactly(issues, issueIds);
+        } finally {
+            FileUtils.deleteDirectory(cacheDirectory);
+        }
+    }
+
+    @Test
+    public void updatedIssueIsQueriedAgain() throws IOException, URISyntaxException {
+        //Given
+        String issueId = "SYM-43";
+        stubExistingIssue(issueId);
+        StubedJiraIssue.stubSearchWithUpdated(jira, issueId, "2030-01-01T00:00:00.000+0000");
+
+        File cacheDirectory = Files.createTempDirectory("TestIssueCache").toFile();
+        when(configuration.getJiraCacheDirectory()).thenReturn(cacheDirectory.getAbsolutePath());
+        when(configuration.getJiraCacheMaxAge()).thenReturn(1);
+        when(configuration.getJiraCacheMaxSize()).thenReturn(100);
+
+        try {
+            //When
+            jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueId)));
+            Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueId)));
+
+            //Then
+            verifyHttp(jira).times(2, get("/rest/api/latest/issue/" + issueId));
+            assertIssueContainsExactly(issues, issueId);
+        } finally {
+            FileUtils.deleteDirectory(cacheDirectory);
+        }
+    }
+
+    @Test
+    public void issuesCachedWithOtherFieldsAreSearchedAgain() throws IOException, URISyntaxException {
+        //Given
+        String[] issueIds = {"SYM-43", "SYM-42"};
+        StubedJiraIssue.stubSearch(jira, issueIds);
+
+        File cacheDirectory = Files.createTempDirectory("TestIssueCache").toFile();
+        when(configuration.getJiraSearchChunkSize()).thenReturn(100);
+        when(configuration.getJiraCacheDirectory()).thenReturn(cacheDirectory.getAbsolutePath());
+        when(configuration.getJiraCacheMaxAge()).thenReturn(1);
+        when(configuration.getJiraCacheMaxSize()).thenReturn(100);
+
+        try {
+            when(configuration.getJiraSearchFields()).thenReturn("summary,status");
+            jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+            //When
+            when(configuration.getJiraSearchFields()).thenReturn(null);
+            Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+            //Then
+            //first search, update stamps of cached issues and search of issues cached with other fields
+            verifyHttp(jira).times(3, get(StubedJiraIssue.SEARCH_PATH));
+            assertIssueContainsExactly(issues, issueIds);
+        } finally {
+            FileUtils.deleteDirectory(cacheDirectory);
+        }
+    }
+
+    @Test
+    public void issuesKeptInMemoryAreNotQueriedByFollowingDao() throws IOException, URISyntaxException {
+        //Given
+        String[] issueIds = {"SYM-43", "SYM-42"};
+        stubExistingIssue(issueIds);
+        when(configuration.getJiraMemoryCacheSize()).thenReturn(100);
+        when(configuration.getJiraMemoryCacheTtl()).thenReturn(10);
+
+        //When
+        jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+        Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+        //Then
+        verifyIssueWasRequested(issueIds);
+        assertIssueContainsExactly(issues, issueIds);
+        assertThat(MainInvoker.issueCacheStatistics().getHits(), is(2L));
+    }
+
+    @Test
+    public void issuesKeptInMemoryAreFilteredByFollowingDao() throws IOException, URISyntaxException {
+        //Given
+        String[] issueIds = {"SYM-43", "SYM-41"};
+        stubExistingIssue(issueIds);
+        when(configuration.getJiraMemoryCacheSize()).thenReturn(100);
+        when(configuration.getJiraMemoryCacheTtl()).thenReturn(10);
+        jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+        //When
+        when(configuration.getIssueFilterByType()).thenReturn("Bug");
+        Collection<Issue> issues = jiraIssueDao().findIssues(new HashSet<String>(Arrays.asList(issueIds)));
+
+        //Then
+        verifyIssueWasRequested(issueIds);
+        assertIssueContainsExactly(issues, "SYM-43");
+    }
+
     private void assertIssueContainsExactly(final Collection<Issue> issues, final String... shouldContain) {
         assertThat(issues, is(notNullValue()));
         assertThat(issues, hasSize(issues.size()));
@@ -240,6 +607,14 @@ public class JiraIssueDaoTest {
         Assert.assertThat(filteredIssueIds, containsInAnyOrder(shouldContain));
     }
 
+    private static Set<String> generatedKeys(final String project, final int count) {
+        Set<String> keys = new HashSet<>();
+        for (int i = 1; i <= count; i++) {
+            keys.add(project + "-" + i);
+        }
+        return keys;
+    }
+
     private void stubExistingIssue(final String... issueIds) throws IOException, URISyntaxException {
         StubedJiraIssue.stubExistingIssue(jira, issueIds);
     }
@@ -264,5 +639,7 @@ public class JiraIssueDaoTest {
     @After
     public void stop() {
         jira.stop();
+        MainInvoker.clearIssueCache();
+        MainInvoker.closeJiraClients();
     }
 }
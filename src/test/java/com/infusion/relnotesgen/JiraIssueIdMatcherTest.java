@@ -2,7 +2,11 @@ package com.infusion.relnotesgen;
 
 import static org.junit.Assert.assertThat;
 
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.hamcrest.Matchers;
@@ -41,7 +45,17 @@ public class JiraIssueIdMatcherTest {
                 //SYM-[numbers] pattern in different configuration
                 { "SYM-\\d+",
                     new String[] {"[SYM-1] createdSYM-3, initial dummy file\n", "'SYM-2' changed dummy file for first time\n"},
-                    new String[] {"SYM-1", "SYM-2", "SYM-3"}  }
+                    new String[] {"SYM-1", "SYM-2", "SYM-3"}  },
+
+                //SYM-[numbers] pattern in messages with non ASCII chars
+                { "SYM-\\d+",
+                    new String[] {"SYM-5 poprawiony błąd żółtej ścieżki\n", "naprawa — SYM-6\n"},
+                    new String[] {"SYM-5", "SYM-6"}  },
+
+                //pattern matching non ASCII chars
+                { "[^\\s\\[']+-\\d+",
+                    new String[] {"zażółć-1 gęślą\n", "[SYM-2] jaźń\n"},
+                    new String[] {"zażółć-1", "SYM-2"}  }
         });
     }
 
@@ -57,4 +71,76 @@ public class JiraIssueIdMatcherTest {
         assertThat(jiraIssueIds, Matchers.hasItems(this.jiraIssueIds));
     }
 
+    @Test
+    public void collectsIdsOfStreamedMessages() {
+        // Given
+        Set<String> jiraIssueIds = new HashSet<String>();
+        SCMFacade.MessageConsumer consumer = new JiraIssueIdMatcher(pattern).collectJiraIds(jiraIssueIds);
+
+        // When
+        for (String message : gitCommitMessages) {
+            consumer.consume(message);
+        }
+
+        // Then
+        assertThat(jiraIssueIds, Matchers.hasSize(this.jiraIssueIds.length));
+        assertThat(jiraIssueIds, Matchers.hasItems(this.jiraIssueIds));
+    }
+
+    @Test
+    public void findsIdsInRawMessagesOfAnyEncoding() {
+        // Given
+        SCMFacade.KeyConsumer consumer = new JiraIssueIdMatcher(pattern).collectJiraIds(new HashSet<String>());
+        byte[] header = "tree 4b825dc642cb6eb9a060e54bf8d69288fbee4904\n\n".getBytes(Charset.forName("US-ASCII"));
+
+        for (String encodingName : new String[] {"UTF-8", "ISO-8859-2", "UTF-16"}) {
+            Charset encoding = Charset.forName(encodingName);
+            Set<String> jiraIssueIds = new HashSet<String>();
+
+            // When
+            for (String message : gitCommitMessages) {
+                byte[] encoded = message.getBytes(encoding);
+                byte[] raw = Arrays.copyOf(header, header.length + encoded.length);
+                System.arraycopy(encoded, 0, raw, header.length, encoded.length);
+                jiraIssueIds.addAll(consumer.findKeys(raw, header.length, encoding));
+            }
+
+            // Then
+            assertThat(encodingName, jiraIssueIds, Matchers.hasSize(this.jiraIssueIds.length));
+            assertThat(encodingName, jiraIssueIds, Matchers.hasItems(this.jiraIssueIds));
+        }
+    }
+
+    @Test
+    public void rawMessageIsMatchedAsTextNextToNonAsciiLetters() {
+        // Given
+        JiraIssueIdMatcher matcher = new JiraIssueIdMatcher("(?U)\\bSYM-\\d+\\b");
+        SCMFacade.KeyConsumer consumer = matcher.collectJiraIds(new HashSet<String>());
+        Charset encoding = Charset.forName("UTF-8");
+        String message = "\u00e9SYM-5 is not an id, SYM-6\u00e9 neither but \u00e9 SYM-7 is";
+
+        // When
+        Set<String> rawIds = consumer.findKeys(message.getBytes(encoding), 0, encoding);
+
+        // Then
+        assertThat(rawIds, Matchers.equalTo(matcher.findJiraIds(Arrays.asList(message))));
+        assertThat(rawIds, Matchers.contains("SYM-7"));
+    }
+
+    @Test
+    public void findsIdsOfManyMessagesInParallel() {
+        // Given
+        List<String> manyMessages = new ArrayList<String>();
+        for (int i = 0; i < 2000; i++) {
+            manyMessages.addAll(Arrays.asList(gitCommitMessages));
+        }
+
+        // When
+        Set<String> jiraIssueIds = new JiraIssueIdMatcher(pattern, null, 1, 4).findJiraIds(manyMessages);
+
+        // Then
+        assertThat(jiraIssueIds, Matchers.hasSize(this.jiraIssueIds.length));
+        assertThat(jiraIssueIds, Matchers.hasItems(this.jiraIssueIds));
+    }
+
 }
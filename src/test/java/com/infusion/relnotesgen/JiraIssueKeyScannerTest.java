@@ -0,0 +1,102 @@
+package com.infusion.relnotesgen;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+/**
+ * @author trojek
+ *
+ */
+public class JiraIssueKeyScannerTest {
+
+    @Test
+    public void findsIdsOfAllProjects() {
+        //Given
+        JiraIssueKeyScanner scanner = new JiraIssueKeyScanner(Arrays.asList("SYM", " CORE", "WEB "));
+
+        //When
+        Set<String> jiraIds = scan(scanner, "[SYM-1] fixed with CORE-22,WEB-333 and createdSYM-4\nSYM-56789");
+
+        //Then
+        assertThat(jiraIds, containsInAnyOrder("SYM-1", "CORE-22", "WEB-333", "SYM-4", "SYM-56789"));
+    }
+
+    @Test
+    public void findsIdsInBytesBetweenNonAsciiChars() {
+        //Given
+        JiraIssueKeyScanner scanner = new JiraIssueKeyScanner(Arrays.asList("SYM", "CORE"));
+        byte[] text = "headerSYM-9\nżółwSYM-1 ąCORE-2ę SYM-3".getBytes(Charset.forName("UTF-8"));
+        Set<String> jiraIds = new HashSet<>();
+
+        //When
+        scanner.scan(text, 12, text.length - 2, jiraIds);
+
+        //Then
+        assertThat(jiraIds, containsInAnyOrder("SYM-1", "CORE-2"));
+    }
+
+    @Test
+    public void skipsKeysNotFollowedByNumber() {
+        //Given
+        JiraIssueKeyScanner scanner = new JiraIssueKeyScanner(Arrays.asList("SYM", "CORE"));
+
+        //When
+        Set<String> jiraIds = scan(scanner, "SYM - CORE-x SYM-\nCORE- 1 OTHER-2 SYM");
+
+        //Then
+        assertThat(jiraIds, is(empty()));
+    }
+
+    @Test
+    public void prefersLongestOfOverlappingKeys() {
+        //Given
+        JiraIssueKeyScanner scanner = new JiraIssueKeyScanner(Arrays.asList("B", "AB", "XAB", "ABC"));
+
+        //When
+        Set<String> jiraIds = scan(scanner, "XAB-1 AB-2 B-3 ABC-4 AB-C");
+
+        //Then
+        assertThat(jiraIds, containsInAnyOrder("XAB-1", "AB-2", "B-3", "ABC-4"));
+    }
+
+    @Test
+    public void findsTheSameIdsAsRegex() {
+        //Given
+        String[] keys = {"SYM", "SY", "CORE", "CORE2", "WEB", "EB", "MOB_APP"};
+        JiraIssueIdMatcher regexMatcher = new JiraIssueIdMatcher("(SYM|SY|CORE|CORE2|WEB|EB|MOB_APP)-\\d+");
+        JiraIssueIdMatcher scanningMatcher = new JiraIssueIdMatcher(null, StringUtils.join(keys, ","));
+
+        String alphabet = "SYMCOREWB_AP2-1 \u0105\n";
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = 0; j < 200; j++) {
+                text.append(random.nextInt(10) == 0 ? keys[random.nextInt(keys.length)] + "-" : "");
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            //When
+            Set<String> scanned = scanningMatcher.findJiraIds(Arrays.asList(text.toString()));
+
+            //Then
+            assertThat(text.toString(), scanned, is(regexMatcher.findJiraIds(Arrays.asList(text.toString()))));
+        }
+    }
+
+    private static Set<String> scan(final JiraIssueKeyScanner scanner, final CharSequence text) {
+        Set<String> jiraIds = new HashSet<>();
+        scanner.scan(text, jiraIds);
+        return jiraIds;
+    }
+}
@@ -0,0 +1,88 @@
+package com.infusion.relnotesgen;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.atlassian.jira.rest.client.domain.Issue;
+
+/**
+ * @author trojek
+ *
+ */
+public class JiraIssueMemoryCacheTest {
+
+    private static final String JIRA_URL = "http://jira";
+    private static final String USER = "johnny";
+
+    @Test
+    public void leastRecentlyUsedIssueIsEvicted() {
+        //Given
+        JiraIssueMemoryCache cache = new JiraIssueMemoryCache(2, 60000);
+        cache.put(JIRA_URL, USER, issue("SYM-1"));
+        cache.put(JIRA_URL, USER, issue("SYM-2"));
+        cache.get(JIRA_URL, USER, "SYM-1");
+
+        //When
+        cache.put(JIRA_URL, USER, issue("SYM-3"));
+
+        //Then
+        assertThat(cache.get(JIRA_URL, USER, "SYM-1"), is(notNullValue()));
+        assertThat(cache.get(JIRA_URL, USER, "SYM-2"), is(nullValue()));
+        assertThat(cache.get(JIRA_URL, USER, "SYM-3"), is(notNullValue()));
+        assertThat(cache.statistics().getEvictions(), is(1L));
+        assertThat(cache.statistics().getSize(), is(2));
+    }
+
+    @Test
+    public void expiredIssueIsNotReturned() throws InterruptedException {
+        //Given
+        JiraIssueMemoryCache cache = new JiraIssueMemoryCache(10, 50);
+        cache.put(JIRA_URL, USER, issue("SYM-1"));
+
+        //When
+        Thread.sleep(100);
+
+        //Then
+        assertThat(cache.get(JIRA_URL, USER, "SYM-1"), is(nullValue()));
+        assertThat(cache.statistics().getMisses(), is(1L));
+        assertThat(cache.statistics().getSize(), is(0));
+    }
+
+    @Test
+    public void issuesOfDifferentJirasAreKeptSeparately() {
+        //Given
+        JiraIssueMemoryCache cache = new JiraIssueMemoryCache(10, 60000);
+
+        //When
+        cache.put(JIRA_URL, USER, issue("SYM-1"));
+
+        //Then
+        assertThat(cache.get("http://other-jira", USER, "SYM-1"), is(nullValue()));
+        assertThat(cache.get(JIRA_URL, USER, "SYM-1"), is(notNullValue()));
+    }
+
+    @Test
+    public void issuesFetchedByDifferentUsersAreKeptSeparately() {
+        //Given
+        JiraIssueMemoryCache cache = new JiraIssueMemoryCache(10, 60000);
+
+        //When
+        cache.put(JIRA_URL, USER, issue("SYM-1"));
+
+        //Then
+        assertThat(cache.get(JIRA_URL, "guest", "SYM-1"), is(nullValue()));
+        assertThat(cache.get(JIRA_URL, USER, "SYM-1"), is(notNullValue()));
+    }
+
+    private Issue issue(final String key) {
+        Issue issue = Mockito.mock(Issue.class);
+        when(issue.getKey()).thenReturn(key);
+        return issue;
+    }
+}
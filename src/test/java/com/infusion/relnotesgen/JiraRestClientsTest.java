@@ -0,0 +1,126 @@
+package com.infusion.relnotesgen;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.net.URISyntaxException;
+
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.atlassian.jira.rest.client.internal.jersey.JerseyJiraRestClient;
+
+/**
+ * @author trojek
+ *
+ */
+public class JiraRestClientsTest {
+
+    private Configuration configuration;
+
+    @Test
+    public void clientIsReusedForSameUrlAndUser() throws URISyntaxException {
+        //Given
+        JerseyJiraRestClient client = JiraRestClients.get(configuration);
+
+        //When
+        JerseyJiraRestClient reusedClient = JiraRestClients.get(configuration);
+
+        //Then
+        assertThat(reusedClient, sameInstance(client));
+    }
+
+    @Test
+    public void otherUserGetsOwnClient() throws URISyntaxException {
+        //Given
+        JerseyJiraRestClient client = JiraRestClients.get(configuration);
+
+        //When
+        when(configuration.getJiraUsername()).thenReturn("other");
+        JerseyJiraRestClient otherClient = JiraRestClients.get(configuration);
+
+        //Then
+        assertThat(otherClient, not(sameInstance(client)));
+    }
+
+    @Test
+    public void clientIsRecreatedWhenPasswordChanges() throws URISyntaxException {
+        //Given
+        JerseyJiraRestClient client = JiraRestClients.get(configuration);
+
+        //When
+        when(configuration.getJiraPassword()).thenReturn("changed");
+        JerseyJiraRestClient recreatedClient = JiraRestClients.get(configuration);
+
+        //Then
+        assertThat(recreatedClient, not(sameInstance(client)));
+    }
+
+    @Test
+    public void clientIsRecreatedWhenConnectionSettingsChange() throws URISyntaxException {
+        //Given
+        JerseyJiraRestClient client = JiraRestClients.get(configuration);
+
+        //When
+        when(configuration.getJiraConnectionsMax()).thenReturn(8);
+        JerseyJiraRestClient recreatedClient = JiraRestClients.get(configuration);
+
+        //Then
+        assertThat(recreatedClient, not(sameInstance(client)));
+        assertThat(connectionManager(recreatedClient).getParams().getMaxTotalConnections(), is(8));
+    }
+
+    @Test
+    public void replacedClientIsClosedWhenReleased() throws URISyntaxException {
+        //Given
+        JerseyJiraRestClient client = JiraRestClients.get(configuration);
+        when(configuration.getJiraPassword()).thenReturn("changed");
+        JiraRestClients.get(configuration);
+
+        //When
+        boolean openWhileUsed = isOpen(client);
+        JiraRestClients.release(client);
+
+        //Then
+        assertThat(openWhileUsed, is(true));
+        assertThat(isOpen(client), is(false));
+    }
+
+    private static HttpConnectionManager connectionManager(final JerseyJiraRestClient client) {
+        return client.getTransportClient().getClientHandler().getHttpClient().getHttpConnectionManager();
+    }
+
+    private static boolean isOpen(final JerseyJiraRestClient client) {
+        HostConfiguration host = new HostConfiguration();
+        host.setHost("localhost", 8080);
+        HttpConnectionManager connectionManager = connectionManager(client);
+        try {
+            connectionManager.releaseConnection(connectionManager.getConnection(host));
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    @Before
+    public void prepareConfiguration() {
+        configuration = Mockito.mock(Configuration.class);
+        when(configuration.getJiraUrl()).thenReturn("http://localhost:8080");
+        when(configuration.getJiraUsername()).thenReturn("trojek");
+        when(configuration.getJiraPassword()).thenReturn("password");
+        when(configuration.getJiraConnectionsMax()).thenReturn(4);
+        when(configuration.getJiraConnectionsIdle()).thenReturn(30);
+    }
+
+    @After
+    public void closeClients() {
+        JiraRestClients.closeAll();
+    }
+}
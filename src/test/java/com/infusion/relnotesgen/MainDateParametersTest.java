@@ -0,0 +1,50 @@
+package com.infusion.relnotesgen;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.junit.Test;
+
+/**
+ * @author trojek
+ *
+ */
+public class MainDateParametersTest {
+
+    @Test
+    public void untilDayEndsAtTheEndOfThatDay() throws ParseException {
+        // Given
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+
+        // When
+        Date since = Main.parseDate("2015-03-01", false);
+        Date until = Main.parseDate("2015-03-31", true);
+
+        // Then
+        assertThat(since, equalTo(format.parse("2015-03-01 00:00:00.000")));
+        assertThat(until, equalTo(format.parse("2015-03-31 23:59:59.999")));
+    }
+
+    @Test
+    public void dateWithTimeIsTakenAsItIs() throws ParseException {
+        // Given
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        // When
+        Date until = Main.parseDate("2015-03-31T08:30:00", true);
+
+        // Then
+        assertThat(until, equalTo(format.parse("2015-03-31 08:30:00")));
+        assertThat(Main.parseDate("", true), nullValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void otherFormatIsRejected() {
+        Main.parseDate("31.03.2015", false);
+    }
+}
@@ -0,0 +1,48 @@
+package com.infusion.relnotesgen;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+
+/**
+ * @author trojek
+ *
+ */
+public class PomVersionReadingTest {
+
+    @Test
+    public void readVersionSkipsVersionOfParentAndDependencies() throws Exception {
+        // Given
+        String pomXml = "<project><parent><version>2.0</version></parent>"
+                + "<dependencies><dependency><version>3.0</version></dependency></dependencies>"
+                + "<version>1.5</version></project>";
+
+        // When
+        String version = readVersion(pomXml);
+
+        // Then
+        assertThat(version, equalTo("1.5"));
+    }
+
+    @Test
+    public void readVersionOfPomWithoutVersion() throws Exception {
+        // Given
+        String pomXml = "<project><parent><version>2.0</version></parent></project>";
+
+        // When
+        String version = readVersion(pomXml);
+
+        // Then
+        assertThat(version, equalTo(""));
+    }
+
+    private String readVersion(final String pomXml) throws XMLStreamException, UnsupportedEncodingException {
+        return GitFacade.getVersion(new ByteArrayInputStream(pomXml.getBytes("UTF-8")));
+    }
+}
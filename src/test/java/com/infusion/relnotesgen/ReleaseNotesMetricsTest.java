@@ -0,0 +1,91 @@
+package com.infusion.relnotesgen;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.infusion.relnotesgen.ReleaseNotesMetrics.MeasuringConsumer;
+import com.infusion.relnotesgen.ReleaseNotesMetrics.Stage;
+
+/**
+ * @author trojek
+ *
+ */
+public class ReleaseNotesMetricsTest {
+
+    @Rule
+    public TemporaryFolder reportDirectory = new TemporaryFolder();
+
+    @Test
+    public void logWalkCountsMessagesAndLeavesMatchingTimeToIdMatching() {
+        //Given
+        ReleaseNotesMetrics metrics = new ReleaseNotesMetrics();
+        final Set<String> ids = new HashSet<>();
+        MeasuringConsumer consumer = metrics.measure(new SCMFacade.MessageConsumer() {
+
+            @Override
+            public void consume(final String message) {
+                sleep(20);
+                ids.add(message.substring(0, 6));
+            }
+        });
+
+        //When
+        consumer.consume("SYM-11 first");
+        consumer.consume("SYM-12 second");
+        metrics.finishLogWalk(consumer);
+        metrics.add(Stage.ID_MATCHING, 0, ids.size(), 0);
+
+        //Then
+        assertThat(metrics.getItems(Stage.LOG_WALK), equalTo(2L));
+        assertThat(metrics.getBytes(Stage.LOG_WALK), equalTo(25L));
+        assertThat(metrics.getItems(Stage.ID_MATCHING), equalTo(2L));
+        assertThat(metrics.getMillis(Stage.ID_MATCHING), greaterThanOrEqualTo(40L));
+        assertThat(metrics.getMillis(Stage.LOG_WALK) < 40, equalTo(true));
+        assertThat(ids, hasItem("SYM-11"));
+    }
+
+    @Test
+    public void writesOnlyRunStagesAsJsonNextToReport() throws IOException {
+        //Given
+        ReleaseNotesMetrics metrics = new ReleaseNotesMetrics();
+        metrics.add(Stage.JIRA_FETCH, TimeUnit.MILLISECONDS.toNanos(120), 30, 0);
+        metrics.add(Stage.RENDERING, TimeUnit.MILLISECONDS.toNanos(15), 30, 2048);
+        File report = new File(reportDirectory.getRoot(), "1_0_3.html");
+
+        //When
+        File written = metrics.write(report);
+
+        //Then
+        assertThat(written, equalTo(new File(report.getParentFile(), "1_0_3-metrics.json")));
+        assertThat(FileUtils.readFileToString(written, "UTF-8"), equalTo("{\"totalMillis\":135,\"stages\":{"
+                + "\"jiraFetch\":{\"millis\":120,\"items\":30,\"bytes\":0},"
+                + "\"rendering\":{\"millis\":15,\"items\":30,\"bytes\":2048}}}"));
+        assertThat(metrics.contains(Stage.PUSH), equalTo(false));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void notStartedStageCantBeFinished() {
+        new ReleaseNotesMetrics().finish(Stage.PUSH, 1, 0);
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
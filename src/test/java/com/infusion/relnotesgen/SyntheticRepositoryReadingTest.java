@@ -0,0 +1,211 @@
+package com.infusion.relnotesgen;
+
+import static com.infusion.relnotesgen.util.RecordingKeyConsumer.fetchingReader;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.infusion.relnotesgen.util.RecordingKeyConsumer;
+import com.infusion.relnotesgen.util.SyntheticGitRepo;
+
+/**
+ * 120 commits on master, every 10th merges side branch of 2 commits, every 50th is tagged.
+ *
+ * @author trojek
+ *
+ */
+public class SyntheticRepositoryReadingTest {
+
+    private static File cacheDirectory;
+    private static SyntheticGitRepo syntheticRepo;
+
+    private GitFacade gitMessageReader;
+    private File tempRepo;
+
+    @BeforeClass
+    public static void generateRepo() throws IOException {
+        cacheDirectory = Files.createTempDirectory("TestSyntheticRepos").toFile();
+        System.setProperty("relnotesgen.synthetic.dir", cacheDirectory.getAbsolutePath());
+        syntheticRepo = repo().create();
+    }
+
+    @AfterClass
+    public static void removeGeneratedRepos() throws IOException {
+        System.clearProperty("relnotesgen.synthetic.dir");
+        FileUtils.deleteDirectory(cacheDirectory);
+    }
+
+    @Before
+    public void cloneRepo() throws IOException {
+        tempRepo = Files.createTempDirectory("TestSyntheticGitRepo").toFile();
+        gitMessageReader = fetchingReader(syntheticRepo.configuration(), tempRepo);
+    }
+
+    @After
+    public void cleanRepo() throws IOException {
+        gitMessageReader.close();
+        FileUtils.deleteDirectory(tempRepo);
+    }
+
+    private List<Set<String>> readKeys(final GitFacade gitFacade, final String firstCommit) {
+        RecordingKeyConsumer consumer = new RecordingKeyConsumer(
+                new JiraIssueIdMatcher(null, "SYM,CORE").collectJiraIds(new HashSet<String>()));
+        gitFacade.readByCommit(firstCommit, syntheticRepo.getHeadCommit(), consumer);
+        return consumer.getKeysOfCommits();
+    }
+
+    private static SyntheticGitRepo repo() {
+        return new SyntheticGitRepo().commits(120).mergeEvery(10, 2).tagEvery(50).projects("SYM", "CORE");
+    }
+
+    @Test
+    public void readsWholeGeneratedHistory() {
+        // Given
+        final int[] messages = {0};
+
+        // When
+        String version = gitMessageReader.readByCommit(syntheticRepo.getFirstCommit(), syntheticRepo.getHeadCommit(),
+                new SCMFacade.MessageConsumer() {
+
+                    @Override
+                    public void consume(final String message) {
+                        messages[0]++;
+                    }
+                });
+
+        // Then
+        assertThat(syntheticRepo.getCommitCount(), equalTo(120 + 12 * 2));
+        assertThat(syntheticRepo.getTagCount(), equalTo(2));
+        assertThat(messages[0], equalTo(syntheticRepo.getCommitCount()));
+        assertThat(version, equalTo("1.3"));
+    }
+
+    @Test
+    public void readsHistoryBetweenLatestTags() {
+        // Given
+
+        // When
+        SCMFacade.Response gitInfo = gitMessageReader.readLatestReleasedVersion();
+
+        // Then
+        assertThat(gitInfo.version, equalTo("1.2"));
+        //tagged commit of 1.1 and 50 mainline commits after it of which 5 merge side branches of 2 commits
+        assertThat(gitInfo.messages.size(), equalTo(1 + 50 + 5 * 2));
+    }
+
+    @Test
+    public void readingOfPartlyIndexedHistoryKeepsOrderOfCommits() throws IOException {
+        // Given
+        GitFacade indexedReader = fetchingReader(syntheticRepo.configuration().keyIndex(true), tempRepo);
+        Git git = Git.open(syntheticRepo.getDirectory());
+        String firstReleaseCommit = git.getRepository().resolve(SyntheticGitRepo.tagName(1) + "^{commit}").getName();
+        git.close();
+        readKeys(indexedReader, firstReleaseCommit);
+
+        // When
+        List<Set<String>> indexedKeys = readKeys(indexedReader, syntheticRepo.getFirstCommit());
+        indexedReader.close();
+
+        // Then
+        assertThat(indexedKeys, equalTo(readKeys(gitMessageReader, syntheticRepo.getFirstCommit())));
+    }
+
+    @Test
+    public void readsHistoryCommittedBetweenDates() {
+        // Given
+        Date since = SyntheticGitRepo.commitTime(11);
+        Date until = SyntheticGitRepo.commitTime(20);
+
+        // When
+        SCMFacade.Response gitInfo = gitMessageReader.readByDate(since, until);
+
+        // Then
+        //mainline commits 11 to 20, the last one merges side branch of 2 commits
+        assertThat(gitInfo.messages.size(), equalTo(10 + 2));
+        assertThat(gitInfo.version, equalTo("1.1"));
+    }
+
+    @Test
+    public void readsHistoryCommittedSinceDateTillHeadOfBranch() {
+        // Given
+
+        // When
+        SCMFacade.Response gitInfo = gitMessageReader.readByDate(SyntheticGitRepo.commitTime(101), null);
+
+        // Then
+        //mainline commits 101 to 120, 110th and 120th merge side branches of 2 commits
+        assertThat(gitInfo.messages.size(), equalTo(20 + 2 * 2));
+        assertThat(gitInfo.version, equalTo("1.3"));
+    }
+
+    @Test
+    public void firstParentWalkReadsOnlyCommitsOfMainline() {
+        // Given
+        GitFacade firstParentReader = fetchingReader(syntheticRepo.configuration().firstParent(true), tempRepo);
+        GitFacade nonMergeReader = fetchingReader(syntheticRepo.configuration().firstParent(true).firstParentMerges(false),
+                tempRepo);
+
+        // When
+        List<Set<String>> firstParentKeys = readKeys(firstParentReader, syntheticRepo.getFirstCommit());
+        List<Set<String>> nonMergeKeys = readKeys(nonMergeReader, syntheticRepo.getFirstCommit());
+        firstParentReader.close();
+        nonMergeReader.close();
+
+        // Then
+        //12 merges of side branches of 2 commits are left out
+        assertThat(firstParentKeys.size(), equalTo(120));
+        assertThat(nonMergeKeys.size(), equalTo(120 - 12));
+    }
+
+    @Test
+    public void firstParentWalkReadsMainlineCommittedSinceDate() {
+        // Given
+        GitFacade firstParentReader = fetchingReader(syntheticRepo.configuration().firstParent(true), tempRepo);
+
+        // When
+        SCMFacade.Response gitInfo = firstParentReader.readByDate(SyntheticGitRepo.commitTime(101), null);
+        firstParentReader.close();
+
+        // Then
+        assertThat(gitInfo.messages.size(), equalTo(20));
+        assertThat(gitInfo.version, equalTo("1.3"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void failsWhenNoCommitWasCommittedBetweenDates() {
+        Date beforeFirstCommit = new Date(SyntheticGitRepo.commitTime(1).getTime() - 1000);
+        gitMessageReader.readByDate(new Date(beforeFirstCommit.getTime() - 60000), beforeFirstCommit);
+    }
+
+    @Test
+    public void reusesRepositoryGeneratedWithTheSameParameters() {
+        // Given
+        long generated = new File(syntheticRepo.getDirectory(), "synthetic.properties").lastModified();
+
+        // When
+        SyntheticGitRepo sameRepo = repo().create();
+        SyntheticGitRepo otherRepo = repo().seed(7).create();
+
+        // Then
+        assertThat(sameRepo.getDirectory(), equalTo(syntheticRepo.getDirectory()));
+        assertThat(new File(sameRepo.getDirectory(), "synthetic.properties").lastModified(), equalTo(generated));
+        assertThat(otherRepo.getDirectory(), not(equalTo(syntheticRepo.getDirectory())));
+        assertThat(otherRepo.getHeadCommit(), not(equalTo(syntheticRepo.getHeadCommit())));
+    }
+}
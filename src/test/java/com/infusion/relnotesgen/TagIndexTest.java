@@ -0,0 +1,151 @@
+package com.infusion.relnotesgen;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.regex.Pattern;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.infusion.relnotesgen.util.TestGitRepo;
+
+/**
+ * @author trojek
+ *
+ */
+public class TagIndexTest {
+
+    private TestGitRepo testGitRepo;
+    private Git git;
+
+    @Before
+    public void openRepo() throws IOException {
+        testGitRepo = new TestGitRepo();
+        git = Git.open(new File(testGitRepo.getGitDirectory()));
+    }
+
+    @After
+    public void cleanRepo() {
+        git.close();
+        testGitRepo.clean();
+    }
+
+    @Test
+    public void tagIsFoundByExactName() throws IOException, GitAPIException {
+        // Given
+        tag("v1.3", "1c814546893dc5544f86ca87ca58f0d162c9ccd2");
+
+        // When
+        TagIndex tagIndex = TagIndex.load(git.getRepository());
+
+        // Then
+        assertThat(tagIndex.get("1.3").commitId.getName(), equalTo("459643f30fea11f0e0e2791c5b8b247c19df8eca"));
+        assertThat(tagIndex.get("refs/tags/1.3").commitId.getName(), equalTo("459643f30fea11f0e0e2791c5b8b247c19df8eca"));
+        assertThat(tagIndex.get("v1.3").commitId.getName(), equalTo("1c814546893dc5544f86ca87ca58f0d162c9ccd2"));
+        assertThat(tagIndex.get(".3"), nullValue());
+    }
+
+    @Test
+    public void storedIndexIsUsedWhileTagsDontChange() throws IOException {
+        // Given
+        TagIndex.load(git.getRepository());
+
+        // When
+        TagIndex tagIndex = TagIndex.load(git.getRepository());
+
+        // Then
+        assertThat(tagIndex.parsedTags(), equalTo(0));
+        assertThat(tagIndex.entries().size(), equalTo(4));
+    }
+
+    @Test
+    public void onlyNewTagIsParsedWhenTagsChange() throws IOException, GitAPIException {
+        // Given
+        TagIndex.load(git.getRepository());
+        tag("1.5", "1c814546893dc5544f86ca87ca58f0d162c9ccd2");
+
+        // When
+        TagIndex tagIndex = TagIndex.load(git.getRepository());
+
+        // Then
+        assertThat(tagIndex.parsedTags(), equalTo(1));
+        assertThat(tagIndex.entries().size(), equalTo(5));
+        assertThat(tagIndex.get("1.5").commitId.getName(), equalTo("1c814546893dc5544f86ca87ca58f0d162c9ccd2"));
+    }
+
+    @Test
+    public void latestTagsAreSelectedByDateNotByOrderOfCommits() throws IOException, GitAPIException {
+        // Given
+        annotatedTag("1.0.1", "1c814546893dc5544f86ca87ca58f0d162c9ccd2", new Date(System.currentTimeMillis()));
+
+        // When
+        List<TagIndex.Entry> latest = TagIndex.load(git.getRepository()).latest(2, null);
+
+        // Then
+        assertThat(names(latest), contains("1.0.1", "1.4"));
+    }
+
+    @Test
+    public void latestTagsMatchPattern() throws IOException, GitAPIException {
+        // Given
+        annotatedTag("build-17", "1c814546893dc5544f86ca87ca58f0d162c9ccd2", new Date(System.currentTimeMillis()));
+
+        // When
+        List<TagIndex.Entry> latest = TagIndex.load(git.getRepository()).latest(3, TagIndex.namePattern("1.*"));
+
+        // Then
+        assertThat(names(latest), contains("1.4", "1.3", "1.2"));
+    }
+
+    @Test
+    public void namePatternQuotesLiteralText() {
+        // When
+        Pattern pattern = TagIndex.namePattern("v1.?");
+
+        // Then
+        assertThat(pattern.matcher("v1.5").matches(), equalTo(true));
+        assertThat(pattern.matcher("v105").matches(), equalTo(false));
+        assertThat(pattern.matcher("v1.55").matches(), equalTo(false));
+    }
+
+    private List<String> names(final List<TagIndex.Entry> tags) {
+        List<String> names = new ArrayList<>();
+        for (TagIndex.Entry tag : tags) {
+            names.add(tag.name);
+        }
+        return names;
+    }
+
+    private void annotatedTag(final String name, final String commitId, final Date date) throws IOException, GitAPIException {
+        RevWalk walk = new RevWalk(git.getRepository());
+        try {
+            git.tag().setName(name).setMessage(name).setTagger(new PersonIdent("username", "mail@mail.com", date, TimeZone.getDefault()))
+                    .setObjectId(walk.parseCommit(git.getRepository().resolve(commitId))).call();
+        } finally {
+            walk.release();
+        }
+    }
+
+    private void tag(final String name, final String commitId) throws IOException, GitAPIException {
+        RevWalk walk = new RevWalk(git.getRepository());
+        try {
+            git.tag().setName(name).setAnnotated(false).setObjectId(walk.parseCommit(git.getRepository().resolve(commitId))).call();
+        } finally {
+            walk.release();
+        }
+    }
+}
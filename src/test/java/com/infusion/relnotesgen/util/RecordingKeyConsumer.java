@@ -0,0 +1,68 @@
+package com.infusion.relnotesgen.util;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.infusion.relnotesgen.GitFacade;
+import com.infusion.relnotesgen.SCMFacade;
+
+/**
+ * Finds keys with given consumer (e.g. of jira issue id matcher) and records keys of every read commit in order of
+ * reading together with number of scanned messages. Fails when message is passed instead of its keys.
+ *
+ * @author trojek
+ *
+ */
+public class RecordingKeyConsumer implements SCMFacade.KeyConsumer {
+
+    private final SCMFacade.KeyConsumer matcher;
+    private final List<Set<String>> keysOfCommits = new ArrayList<>();
+    private int scannedMessages;
+
+    public RecordingKeyConsumer(final SCMFacade.KeyConsumer matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * @return reader fetching repository of given configuration into given directory
+     */
+    public static GitFacade fetchingReader(final TestConfigurationBuilder configuration, final File directory) {
+        return new GitFacade(configuration
+                .gitDirectory(directory.getAbsolutePath())
+                .fetchOnly(true)
+                .build());
+    }
+
+    @Override
+    public void consume(final String message) {
+        throw new AssertionError("Keys are found in raw messages");
+    }
+
+    @Override
+    public String signature() {
+        return matcher.signature();
+    }
+
+    @Override
+    public Set<String> findKeys(final byte[] raw, final int messageStart, final Charset encoding) {
+        scannedMessages++;
+        return matcher.findKeys(raw, messageStart, encoding);
+    }
+
+    @Override
+    public void consumeKeys(final Set<String> keys) {
+        keysOfCommits.add(keys);
+        matcher.consumeKeys(keys);
+    }
+
+    public List<Set<String>> getKeysOfCommits() {
+        return keysOfCommits;
+    }
+
+    public int getScannedMessages() {
+        return scannedMessages;
+    }
+}
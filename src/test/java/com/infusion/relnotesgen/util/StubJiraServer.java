@@ -0,0 +1,355 @@
+package com.infusion.relnotesgen.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Jira rest api served locally for tests and benchmarks of fetching issues. Generated issues are built from test issue
+ * json and can be queried one by one or with JQL search 'key in (...)', other JQL conditions are ignored. Every
+ * request is delayed by configured latency and may be answered with injected 429 (rate limit) or 503 response,
+ * unknown issues are answered with 404 and JQL with unknown key with 400 like real jira does. Unlike restito stubs
+ * responses are looked up by key so thousands of issues can be served concurrently.
+ *
+ * <pre>
+ * StubJiraServer jira = new StubJiraServer().issues("SYM", 1000).latency(Latency.uniform(20, 80)).start();
+ * </pre>
+ *
+ * @author trojek
+ *
+ */
+public class StubJiraServer {
+
+    public static final String ISSUE_PATH = "/rest/api/latest/issue/";
+    public static final String SEARCH_PATH = "/rest/api/latest/search";
+
+    private static final String TEMPLATE_ISSUE = "/testissues/SYM-32.json";
+    private static final String[] TYPES = {"New Feature", "Bug", "Task", "Technical Task", "Improvement"};
+    private static final String[] PRIORITIES = {"Highest", "High", "Medium", "Low", "Lowest"};
+    private static final Pattern JQL_KEYS = Pattern.compile("key in \\(([^)]*)\\)");
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final Map<String, GeneratedIssue> issues = new ConcurrentHashMap<>();
+    private Latency latency = Latency.none();
+    private double rateLimited = 0;
+    private int retryAfter = 1;
+    private double serverErrors = 0;
+    private int threads = 32;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private final AtomicInteger issueRequests = new AtomicInteger();
+    private final AtomicInteger searchRequests = new AtomicInteger();
+    private final AtomicInteger injectedFailures = new AtomicInteger();
+    private final AtomicInteger runningRequests = new AtomicInteger();
+    private final AtomicInteger maxRunningRequests = new AtomicInteger();
+
+    /**
+     * Adds issues project-1 to project-count, types and priorities of issues rotate.
+     */
+    public StubJiraServer issues(final String project, final int count) {
+        try {
+            String template = IOUtils.toString(StubJiraServer.class.getResource(TEMPLATE_ISSUE), "UTF-8");
+            for (int i = 1; i <= count; i++) {
+                String key = project + "-" + i;
+                JSONObject json = new JSONObject(template);
+                json.put("key", key);
+                json.put("id", String.valueOf(100000 + issues.size()));
+                json.put("self", "http://localhost/rest/api/latest/issue/" + key);
+                JSONObject fields = json.getJSONObject("fields");
+                fields.put("summary", "Generated issue " + key);
+                fields.getJSONObject("issuetype").put("name", TYPES[i % TYPES.length]);
+                fields.getJSONObject("priority").put("name", PRIORITIES[i % PRIORITIES.length]);
+                issues.put(key, new GeneratedIssue(key, json.toString(), fields.optString("updated")));
+            }
+            return this;
+        } catch (IOException | JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Removes issues so they are answered with 404.
+     */
+    public StubJiraServer missing(final String... keys) {
+        for (String key : keys) {
+            issues.remove(key);
+        }
+        return this;
+    }
+
+    public StubJiraServer latency(final Latency latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * @param probability part of requests answered with 429 Too Many Requests
+     * @param retryAfter seconds sent in Retry-After header
+     */
+    public StubJiraServer rateLimited(final double probability, final int retryAfter) {
+        this.rateLimited = probability;
+        this.retryAfter = retryAfter;
+        return this;
+    }
+
+    /**
+     * @param probability part of requests answered with 503 Service Unavailable
+     */
+    public StubJiraServer serverErrors(final double probability) {
+        this.serverErrors = probability;
+        return this;
+    }
+
+    /**
+     * @param threads number of requests served at once, following ones wait in queue
+     */
+    public StubJiraServer threads(final int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public StubJiraServer start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            executor = Executors.newFixedThreadPool(threads);
+            server.setExecutor(executor);
+            server.createContext("/", new HttpHandler() {
+
+                @Override
+                public void handle(final HttpExchange exchange) throws IOException {
+                    serve(exchange);
+                }
+            });
+            server.start();
+            return this;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public int getIssueRequests() {
+        return issueRequests.get();
+    }
+
+    public int getSearchRequests() {
+        return searchRequests.get();
+    }
+
+    /**
+     * @return number of requests answered with injected 429 or 503
+     */
+    public int getInjectedFailures() {
+        return injectedFailures.get();
+    }
+
+    /**
+     * @return the highest number of requests which were served at the same time
+     */
+    public int getMaxConcurrentRequests() {
+        return maxRunningRequests.get();
+    }
+
+    private void serve(final HttpExchange exchange) throws IOException {
+        int running = runningRequests.incrementAndGet();
+        int maxRunning;
+        do {
+            maxRunning = maxRunningRequests.get();
+        } while (running > maxRunning && !maxRunningRequests.compareAndSet(maxRunning, running));
+
+        try {
+            Random random = ThreadLocalRandom.current();
+            sleep(latency.millis(random));
+
+            String path = exchange.getRequestURI().getPath();
+            if (random.nextDouble() < serverErrors) {
+                injectedFailures.incrementAndGet();
+                respond(exchange, 503, "{\"errorMessages\":[\"Service unavailable\"],\"errors\":{}}");
+            } else if (random.nextDouble() < rateLimited) {
+                injectedFailures.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfter));
+                respond(exchange, 429, "{\"errorMessages\":[\"Rate limit exceeded\"],\"errors\":{}}");
+            } else if (path.startsWith(ISSUE_PATH)) {
+                issueRequests.incrementAndGet();
+                GeneratedIssue issue = issues.get(path.substring(ISSUE_PATH.length()));
+                if (issue == null) {
+                    respond(exchange, 404, "{\"errorMessages\":[\"Issue Does Not Exist\"],\"errors\":{}}");
+                } else {
+                    respond(exchange, 200, issue.json);
+                }
+            } else if (path.equals(SEARCH_PATH)) {
+                searchRequests.incrementAndGet();
+                search(exchange, parameters(exchange.getRequestURI().getRawQuery()));
+            } else {
+                respond(exchange, 404, "{\"errorMessages\":[\"Not found\"],\"errors\":{}}");
+            }
+        } finally {
+            runningRequests.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void search(final HttpExchange exchange, final Map<String, String> parameters) throws IOException {
+        List<GeneratedIssue> found = new ArrayList<>();
+        Matcher keys = JQL_KEYS.matcher(String.valueOf(parameters.get("jql")));
+        if (keys.find()) {
+            for (String quotedKey : keys.group(1).split(",")) {
+                String key = quotedKey.trim().replace("\"", "");
+                GeneratedIssue issue = issues.get(key);
+                if (issue == null) {
+                    respond(exchange, 400, "{\"errorMessages\":[\"The issue key '" + key + "' for field 'key' is invalid.\"],\"errors\":{}}");
+                    return;
+                }
+                found.add(issue);
+            }
+        } else {
+            found.addAll(issues.values());
+        }
+
+        int startAt = parameters.containsKey("startAt") ? Integer.parseInt(parameters.get("startAt")) : 0;
+        int maxResults = parameters.containsKey("maxResults") ? Integer.parseInt(parameters.get("maxResults")) : DEFAULT_PAGE_SIZE;
+        boolean onlyUpdated = "updated".equals(parameters.get("fields"));
+
+        StringBuilder page = new StringBuilder("{\"startAt\":").append(startAt)
+                .append(",\"maxResults\":").append(maxResults)
+                .append(",\"total\":").append(found.size())
+                .append(",\"issues\":[");
+        for (int i = startAt; i < Math.min(found.size(), startAt + maxResults); i++) {
+            GeneratedIssue issue = found.get(i);
+            if (i > startAt) {
+                page.append(',');
+            }
+            if (onlyUpdated) {
+                page.append("{\"key\":\"").append(issue.key).append("\",\"fields\":{\"updated\":\"").append(issue.updated).append("\"}}");
+            } else {
+                page.append(issue.json);
+            }
+        }
+        respond(exchange, 200, page.append("]}").toString());
+    }
+
+    private static Map<String, String> parameters(final String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static void sleep(final long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Distribution of time after which request is answered.
+     */
+    public abstract static class Latency {
+
+        abstract long millis(Random random);
+
+        public static Latency none() {
+            return fixed(0);
+        }
+
+        public static Latency fixed(final long millis) {
+            return new Latency() {
+
+                @Override
+                long millis(final Random random) {
+                    return millis;
+                }
+            };
+        }
+
+        public static Latency uniform(final long min, final long max) {
+            return new Latency() {
+
+                @Override
+                long millis(final Random random) {
+                    return min + (long) (random.nextDouble() * (max - min));
+                }
+            };
+        }
+
+        /**
+         * Most requests are answered close to min but few take many times the mean, like with loaded server.
+         */
+        public static Latency exponential(final long min, final long mean) {
+            return new Latency() {
+
+                @Override
+                long millis(final Random random) {
+                    return min + (long) (-Math.log(1 - random.nextDouble()) * (mean - min));
+                }
+            };
+        }
+    }
+
+    private static class GeneratedIssue {
+        final String key;
+        final String json;
+        final String updated;
+
+        GeneratedIssue(final String key, final String json, final String updated) {
+            this.key = key;
+            this.json = json;
+            this.updated = updated;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.infusion.relnotesgen.util;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import com.infusion.relnotesgen.util.StubJiraServer.Latency;
+
+/**
+ * @author trojek
+ *
+ */
+public class StubJiraServerTest {
+
+    private StubJiraServer jira;
+
+    @After
+    public void stopJira() {
+        jira.stop();
+    }
+
+    @Test
+    public void servesGeneratedIssuesAndAnswersMissingOnesWith404() throws IOException, JSONException {
+        //Given
+        jira = new StubJiraServer().issues("SYM", 10).missing("SYM-3").start();
+
+        //When
+        Answer issue = get(StubJiraServer.ISSUE_PATH + "SYM-7");
+        Answer missing = get(StubJiraServer.ISSUE_PATH + "SYM-3");
+
+        //Then
+        assertThat(issue.status, equalTo(200));
+        assertThat(new JSONObject(issue.body).getString("key"), equalTo("SYM-7"));
+        assertThat(missing.status, equalTo(404));
+        assertThat(jira.getIssueRequests(), equalTo(2));
+    }
+
+    @Test
+    public void searchReturnsPagesOfAskedIssuesAndRejectsUnknownKeys() throws IOException, JSONException {
+        //Given
+        jira = new StubJiraServer().issues("SYM", 10).start();
+
+        //When
+        Answer page = search("key in (\"SYM-1\",\"SYM-2\",\"SYM-3\")", "startAt=2&maxResults=2&fields=updated");
+        Answer rejected = search("key in (\"SYM-1\",\"NOT-1\")", "");
+
+        //Then
+        assertThat(page.status, equalTo(200));
+        JSONObject json = new JSONObject(page.body);
+        assertThat(json.getInt("total"), equalTo(3));
+        assertThat(json.getJSONArray("issues").length(), equalTo(1));
+        assertThat(json.getJSONArray("issues").getJSONObject(0).getString("key"), equalTo("SYM-3"));
+        assertThat(rejected.status, equalTo(400));
+        assertThat(rejected.body, containsString("NOT-1"));
+    }
+
+    @Test
+    public void injectsFailuresAndLatency() throws IOException {
+        //Given
+        jira = new StubJiraServer().issues("SYM", 1).latency(Latency.fixed(50)).rateLimited(1, 7).start();
+
+        //When
+        long startTime = System.currentTimeMillis();
+        HttpURLConnection connection = connect(StubJiraServer.ISSUE_PATH + "SYM-1");
+        int status = connection.getResponseCode();
+
+        //Then
+        assertThat(System.currentTimeMillis() - startTime, greaterThanOrEqualTo(50L));
+        assertThat(status, equalTo(429));
+        assertThat(connection.getHeaderField("Retry-After"), equalTo("7"));
+        assertThat(jira.getInjectedFailures(), equalTo(1));
+    }
+
+    @Test
+    public void injectsServerErrors() throws IOException {
+        //Given
+        jira = new StubJiraServer().issues("SYM", 1).serverErrors(1).start();
+
+        //When
+        Answer answer = get(StubJiraServer.ISSUE_PATH + "SYM-1");
+
+        //Then
+        assertThat(answer.status, equalTo(503));
+    }
+
+    private Answer search(final String jql, final String parameters) throws IOException {
+        return get(StubJiraServer.SEARCH_PATH + "?jql=" + URLEncoder.encode(jql, "UTF-8") + "&" + parameters);
+    }
+
+    private Answer get(final String path) throws IOException {
+        HttpURLConnection connection = connect(path);
+        Answer answer = new Answer();
+        answer.status = connection.getResponseCode();
+        try (InputStream body = answer.status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            answer.body = IOUtils.toString(body, "UTF-8");
+        }
+        return answer;
+    }
+
+    private HttpURLConnection connect(final String path) throws IOException {
+        return (HttpURLConnection) new URL(jira.getUrl() + path).openConnection();
+    }
+
+    private static class Answer {
+        int status;
+        String body;
+    }
+}
@@ -8,16 +8,23 @@ import static com.xebialabs.restito.semantics.Action.contentType;
 import static com.xebialabs.restito.semantics.Action.header;
 import static com.xebialabs.restito.semantics.Action.ok;
 import static com.xebialabs.restito.semantics.Action.resourceContent;
+import static com.xebialabs.restito.semantics.Action.stringContent;
 import static com.xebialabs.restito.semantics.Condition.get;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 
+import org.apache.commons.io.IOUtils;
+import org.glassfish.grizzly.http.server.Response;
 import org.glassfish.grizzly.http.util.HttpStatus;
 
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
 import com.infusion.relnotesgen.JiraIssueDaoTest;
 import com.xebialabs.restito.semantics.Action;
+import com.xebialabs.restito.semantics.Call;
+import com.xebialabs.restito.semantics.Condition;
 import com.xebialabs.restito.server.StubServer;
 
 
@@ -27,17 +34,27 @@ import com.xebialabs.restito.server.StubServer;
  */
 public class StubedJiraIssue {
 
+    public static final String SEARCH_PATH = "/rest/api/latest/search";
+
     public static void stubAllExistingIssue(final StubServer jira) throws IOException, URISyntaxException {
         stubExistingIssue(jira, "SYM-43", "SYM-42", "SYM-41", "SYM-32");
     }
 
     public static void stubExistingIssue(final StubServer jira, final String... issueIds) throws IOException, URISyntaxException {
+        stubExistingIssueWithLatency(jira, 0, issueIds);
+    }
+
+    /**
+     * Every response for given issues is delayed by latency milis to simulate remote jira.
+     */
+    public static void stubExistingIssueWithLatency(final StubServer jira, final long latency, final String... issueIds) throws IOException, URISyntaxException {
         for(String issueId : issueIds) {
             URL responseUrl = JiraIssueDaoTest.class.getResource("/testissues/" + issueId + ".json");
 
             whenHttp(jira)
                 .match(get("/rest/api/latest/issue/" + issueId))
                 .then(Action.composite(
+                        delay(latency),
                         ok(),
                         contentType("application/json"),
                         header("Content-Encoding", "gzip"),
@@ -48,6 +65,102 @@ public class StubedJiraIssue {
         }
     }
 
+    /**
+     * JQL search returns given issues no matter what JQL was asked.
+     */
+    public static void stubSearch(final StubServer jira, final String... issueIds) throws IOException {
+        stubSearch(jira, Condition.alwaysTrue(), issueIds);
+    }
+
+    /**
+     * JQL search returns given issues only when asked JQL contains given text.
+     */
+    public static void stubSearchWithJqlContaining(final StubServer jira, final String jqlPart, final String... issueIds) throws IOException {
+        stubSearch(jira, Condition.custom(new Predicate<Call>() {
+
+            @Override
+            public boolean apply(final Call call) {
+                String[] jql = call.getParameters().get("jql");
+                return jql != null && jql[0].contains(jqlPart);
+            }
+        }), issueIds);
+    }
+
+    private static void stubSearch(final StubServer jira, final Condition jqlCondition, final String... issueIds) throws IOException {
+        StringBuilder issues = new StringBuilder();
+        for(String issueId : issueIds) {
+            if(issues.length() > 0) {
+                issues.append(",");
+            }
+            issues.append(IOUtils.toString(JiraIssueDaoTest.class.getResource("/testissues/" + issueId + ".json"), "UTF-8"));
+        }
+        String searchResult = "{\"startAt\":0,\"maxResults\":" + issueIds.length + ",\"total\":" + issueIds.length
+                + ",\"issues\":[" + issues + "]}";
+
+        whenHttp(jira)
+            .match(get(SEARCH_PATH), jqlCondition)
+            .then(Action.composite(
+                    ok(),
+                    contentType("application/json"),
+                    stringContent(searchResult))
+                 );
+    }
+
+    /**
+     * JQL search returns issue with only 'updated' field of given value.
+     */
+    public static void stubSearchWithUpdated(final StubServer jira, final String issueId, final String updated) {
+        String searchResult = "{\"startAt\":0,\"maxResults\":1,\"total\":1,\"issues\":[{\"key\":\"" + issueId
+                + "\",\"fields\":{\"updated\":\"" + updated + "\"}}]}";
+
+        whenHttp(jira)
+            .match(get(SEARCH_PATH))
+            .then(Action.composite(
+                    ok(),
+                    contentType("application/json"),
+                    stringContent(searchResult))
+                 );
+    }
+
+    /**
+     * JQL search expanding changelog returns issue which was moved from given previous key.
+     */
+    public static void stubSearchWithChangelog(final StubServer jira, final String issueId, final String previousKey) {
+        String searchResult = "{\"startAt\":0,\"maxResults\":1,\"total\":1,\"issues\":[{\"key\":\"" + issueId
+                + "\",\"fields\":{},\"changelog\":{\"histories\":[{\"items\":[{\"field\":\"Key\",\"fromString\":\""
+                + previousKey + "\",\"toString\":\"" + issueId + "\"}]}]}}]}";
+
+        whenHttp(jira)
+            .match(get(SEARCH_PATH), Condition.custom(new Predicate<Call>() {
+
+                @Override
+                public boolean apply(final Call call) {
+                    String[] expand = call.getParameters().get("expand");
+                    return expand != null && expand[0].contains("changelog");
+                }
+            }))
+            .then(Action.composite(
+                    ok(),
+                    contentType("application/json"),
+                    stringContent(searchResult))
+                 );
+    }
+
+    private static Action delay(final long latency) {
+        return Action.custom(new Function<Response, Response>() {
+
+            @Override
+            public Response apply(final Response response) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return response;
+            }
+        });
+    }
+
     public static void stubNotExistingIssue(final StubServer jira, final String issueId) {
         whenHttp(jira)
             .match(get("/rest/api/latest/issue/" + issueId))
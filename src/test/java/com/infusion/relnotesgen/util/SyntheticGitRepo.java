@@ -0,0 +1,363 @@
+package com.infusion.relnotesgen.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TagBuilder;
+
+/**
+ * Generates bare git repository of production like size for performance tests. History of master consists of given
+ * number of commits, every mergeEvery-th of them is merge of side branch forked from previous mainline commit, every
+ * tagEvery-th mainline commit is tagged with next version which is also set in pom.xml. Messages start with id of
+ * random jira issue of given projects and are padded to given size, some of them refer to second issue in body.
+ * Generation is deterministic and generated repository is kept in cache directory (system property
+ * relnotesgen.synthetic.dir, temp directory by default) under name built from parameters, so following runs with the
+ * same parameters reuse it.
+ *
+ * <pre>
+ * SyntheticGitRepo repo = new SyntheticGitRepo().commits(10000).mergeEvery(10).tagEvery(100).create();
+ * </pre>
+ *
+ * @author trojek
+ *
+ */
+public class SyntheticGitRepo {
+
+    private static final String CACHE_DIRECTORY_PROPERTY = "relnotesgen.synthetic.dir";
+    private static final String DESCRIPTION_FILE = "synthetic.properties";
+    /**
+     * Part of name of generated repository, changed whenever generated history changes so cached repositories aren't
+     * reused
+     */
+    private static final int LAYOUT = 2;
+    private static final String[] WORDS = {"fixed", "added", "removed", "refactored", "null", "check", "service",
+        "for", "the", "in", "validation", "of", "report", "cache", "after", "review", "comments", "test", "handling"};
+    private static final long START_TIME = 1420070400000L;
+    private static final TimeZone TIME_ZONE = TimeZone.getTimeZone("UTC");
+
+    private int commits = 1000;
+    private int mergeEvery = 0;
+    private int branchLength = 3;
+    private int tagEvery = 100;
+    private double annotatedTags = 0.5;
+    private int messageSize = 200;
+    private String[] projects = {"SYM"};
+    private int issues = 5000;
+    private long seed = 42;
+
+    private File directory;
+    private Properties description;
+
+    /**
+     * @param commits number of commits on first parent history of master, side branch commits are not counted
+     */
+    public SyntheticGitRepo commits(final int commits) {
+        this.commits = commits;
+        return this;
+    }
+
+    /**
+     * @param mergeEvery every that many mainline commit is merge of side branch, 0 means linear history
+     * @param branchLength number of commits on every merged side branch
+     */
+    public SyntheticGitRepo mergeEvery(final int mergeEvery, final int branchLength) {
+        this.mergeEvery = mergeEvery;
+        this.branchLength = branchLength;
+        return this;
+    }
+
+    public SyntheticGitRepo mergeEvery(final int mergeEvery) {
+        return mergeEvery(mergeEvery, branchLength);
+    }
+
+    /**
+     * @param tagEvery every that many mainline commit is tagged, 0 means no tags
+     */
+    public SyntheticGitRepo tagEvery(final int tagEvery) {
+        this.tagEvery = tagEvery;
+        return this;
+    }
+
+    /**
+     * @param annotatedTags part of tags which are annotated, from 0 to 1, the rest is lightweight
+     */
+    public SyntheticGitRepo annotatedTags(final double annotatedTags) {
+        this.annotatedTags = annotatedTags;
+        return this;
+    }
+
+    /**
+     * @param messageSize approximate number of chars of every commit message
+     */
+    public SyntheticGitRepo messageSize(final int messageSize) {
+        this.messageSize = messageSize;
+        return this;
+    }
+
+    /**
+     * @param projects keys of jira projects referred in messages
+     */
+    public SyntheticGitRepo projects(final String... projects) {
+        this.projects = projects;
+        return this;
+    }
+
+    /**
+     * @param issues issue numbers referred in messages are from 1 to that number
+     */
+    public SyntheticGitRepo issues(final int issues) {
+        this.issues = issues;
+        return this;
+    }
+
+    public SyntheticGitRepo seed(final long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Generates repository or reuses one generated before with the same parameters.
+     */
+    public SyntheticGitRepo create() {
+        File cacheDirectory = new File(System.getProperty(CACHE_DIRECTORY_PROPERTY,
+                new File(System.getProperty("java.io.tmpdir"), "relnotesgen-synthetic").getAbsolutePath()));
+        directory = new File(cacheDirectory, name());
+        try {
+            File descriptionFile = new File(directory, DESCRIPTION_FILE);
+            if (!descriptionFile.exists()) {
+                cacheDirectory.mkdirs();
+                File generated = Files.createTempDirectory(cacheDirectory.toPath(), name()).toFile();
+                generate(generated);
+                //the whole repository appears at once so interrupted generation is never mistaken for cached one
+                if (!generated.renameTo(directory)) {
+                    FileUtils.deleteDirectory(generated);
+                    if (!descriptionFile.exists()) {
+                        throw new IOException("Couldn't move generated repository to " + directory);
+                    }
+                }
+            }
+            description = new Properties();
+            try (InputStream input = new FileInputStream(descriptionFile)) {
+                description.load(input);
+            }
+            return this;
+        } catch (IOException | GitAPIException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return bare repository directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    public String getUrl() {
+        return directory.toURI().toString();
+    }
+
+    /**
+     * @return id of root commit
+     */
+    public String getFirstCommit() {
+        return description.getProperty("first");
+    }
+
+    /**
+     * @return id of commit master points to
+     */
+    public String getHeadCommit() {
+        return description.getProperty("head");
+    }
+
+    /**
+     * @return number of all commits, including side branches and merges
+     */
+    public int getCommitCount() {
+        return Integer.parseInt(description.getProperty("commits"));
+    }
+
+    public int getTagCount() {
+        return Integer.parseInt(description.getProperty("tags"));
+    }
+
+    /**
+     * @return configuration reading from generated repository, local git directory has to be set
+     */
+    public TestConfigurationBuilder configuration() {
+        return new TestConfigurationBuilder().url(getUrl());
+    }
+
+    /**
+     * @return commit time of n-th mainline commit, first one is 1, commits are a minute apart and side branch merged by
+     *         n-th commit is committed in seconds just before it
+     */
+    public static Date commitTime(final int n) {
+        return new Date(START_TIME + n * 60000L);
+    }
+
+    /**
+     * @return name of n-th tag, first one is 1
+     */
+    public static String tagName(final int n) {
+        return "v1." + n;
+    }
+
+    private String name() {
+        return String.format(Locale.ROOT, "l%d-c%d-m%dx%d-t%d-a%.2f-s%d-p%s-i%d-r%d", LAYOUT, commits, mergeEvery,
+                branchLength, tagEvery, annotatedTags, messageSize, StringUtils.join(projects, '_'), issues, seed);
+    }
+
+    private void generate(final File target) throws IOException, GitAPIException {
+        Git git = Git.init().setBare(true).setDirectory(target).call();
+        Repository repository = git.getRepository();
+        ObjectInserter inserter = repository.newObjectInserter();
+        Random random = new Random(seed);
+        try {
+            int allCommits = 0;
+            int tags = 0;
+            long time = START_TIME;
+            ObjectId tree = tree(inserter, tagName(1));
+            ObjectId first = null;
+            ObjectId head = null;
+
+            for (int i = 1; i <= commits; i++) {
+                time += 60000;
+                if (head != null && mergeEvery > 0 && i % mergeEvery == 0) {
+                    ObjectId side = head;
+                    for (int j = branchLength; j > 0; j--) {
+                        side = commit(inserter, tree, message(random), time - j * 1000L, side);
+                        allCommits++;
+                    }
+                    head = commit(inserter, tree, "Merge branch 'feature-" + i + "'\n", time, head, side);
+                } else {
+                    head = commit(inserter, tree, message(random), time, head);
+                }
+                allCommits++;
+                if (first == null) {
+                    first = head;
+                }
+
+                if (tagEvery > 0 && i % tagEvery == 0) {
+                    tags++;
+                    tag(repository, inserter, tagName(tags), head, time, random.nextDouble() < annotatedTags);
+                    //following commits are already part of next version
+                    tree = tree(inserter, tagName(tags + 1));
+                }
+            }
+            inserter.flush();
+
+            RefUpdate update = repository.updateRef(Constants.R_HEADS + "master");
+            update.setNewObjectId(head);
+            update.forceUpdate();
+
+            //loose objects are packed like in repository cloned from server
+            git.gc().call();
+
+            Properties generated = new Properties();
+            generated.setProperty("first", first.getName());
+            generated.setProperty("head", head.getName());
+            generated.setProperty("commits", String.valueOf(allCommits));
+            generated.setProperty("tags", String.valueOf(tags));
+            try (OutputStream output = new FileOutputStream(new File(target, DESCRIPTION_FILE))) {
+                generated.store(output, name());
+            }
+        } finally {
+            inserter.release();
+            git.close();
+        }
+    }
+
+    private ObjectId tree(final ObjectInserter inserter, final String version) throws IOException {
+        DirCache index = DirCache.newInCore();
+        DirCacheBuilder builder = index.builder();
+        DirCacheEntry pom = new DirCacheEntry("pom.xml");
+        pom.setFileMode(FileMode.REGULAR_FILE);
+        pom.setObjectId(inserter.insert(Constants.OBJ_BLOB,
+                ("<project>\n    <version>" + version.substring(1) + "</version>\n</project>\n").getBytes("UTF-8")));
+        builder.add(pom);
+        builder.finish();
+        return index.writeTree(inserter);
+    }
+
+    private ObjectId commit(final ObjectInserter inserter, final ObjectId tree, final String message, final long time,
+            final ObjectId... parents) throws IOException {
+        PersonIdent ident = new PersonIdent("synthetic", "synthetic@mail.com", new Date(time), TIME_ZONE);
+        CommitBuilder commit = new CommitBuilder();
+        commit.setAuthor(ident);
+        commit.setCommitter(ident);
+        commit.setTreeId(tree);
+        commit.setMessage(message);
+        for (ObjectId parent : parents) {
+            if (parent != null) {
+                commit.addParentId(parent);
+            }
+        }
+        return inserter.insert(commit);
+    }
+
+    private void tag(final Repository repository, final ObjectInserter inserter, final String name, final ObjectId commit,
+            final long time, final boolean annotated) throws IOException {
+        ObjectId target = commit;
+        if (annotated) {
+            TagBuilder tag = new TagBuilder();
+            tag.setTag(name);
+            tag.setObjectId(commit, Constants.OBJ_COMMIT);
+            tag.setTagger(new PersonIdent("synthetic", "synthetic@mail.com", new Date(time), TIME_ZONE));
+            tag.setMessage("Release " + name + "\n");
+            target = inserter.insert(tag);
+        }
+        inserter.flush();
+        RefUpdate update = repository.updateRef(Constants.R_TAGS + name);
+        update.setNewObjectId(target);
+        update.forceUpdate();
+    }
+
+    private String message(final Random random) {
+        StringBuilder message = new StringBuilder(messageSize + 32);
+        message.append(issue(random)).append(' ');
+        appendWords(message, random, 40);
+        message.append("\n\n");
+        if (random.nextInt(4) == 0) {
+            message.append("Related to ").append(issue(random)).append(". ");
+        }
+        appendWords(message, random, messageSize);
+        return message.append('\n').toString();
+    }
+
+    private String issue(final Random random) {
+        return projects[random.nextInt(projects.length)] + "-" + (1 + random.nextInt(issues));
+    }
+
+    private static void appendWords(final StringBuilder text, final Random random, final int length) {
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+    }
+}
@@ -10,6 +10,13 @@ public class TestConfigurationBuilder {
     private String gitDirectory;
     private String branch = "master";
     private String url;
+    private boolean bare = false;
+    private boolean fetchOnly = false;
+    private int fetchFreshness = 0;
+    private String tagPattern;
+    private boolean keyIndex = false;
+    private boolean firstParent = false;
+    private boolean firstParentMerges = true;
 
     public TestConfigurationBuilder gitDirectory(final String gitDirectory) {
         this.gitDirectory = gitDirectory;
@@ -26,11 +33,55 @@ public class TestConfigurationBuilder {
         return this;
     }
 
+    public TestConfigurationBuilder bare(final boolean bare) {
+        this.bare = bare;
+        return this;
+    }
+
+    public TestConfigurationBuilder fetchOnly(final boolean fetchOnly) {
+        this.fetchOnly = fetchOnly;
+        return this;
+    }
+
+    public TestConfigurationBuilder fetchFreshness(final int fetchFreshness) {
+        this.fetchFreshness = fetchFreshness;
+        return this;
+    }
+
+    public TestConfigurationBuilder tagPattern(final String tagPattern) {
+        this.tagPattern = tagPattern;
+        return this;
+    }
+
+    public TestConfigurationBuilder keyIndex(final boolean keyIndex) {
+        this.keyIndex = keyIndex;
+        return this;
+    }
+
+    public TestConfigurationBuilder firstParent(final boolean firstParent) {
+        this.firstParent = firstParent;
+        return this;
+    }
+
+    public TestConfigurationBuilder firstParentMerges(final boolean firstParentMerges) {
+        this.firstParentMerges = firstParentMerges;
+        return this;
+    }
+
     public Configuration build() {
         Properties properties = new Properties();
         properties.put("git.directory", gitDirectory);
         properties.put("git.branch", branch);
         properties.put("git.url", url);
+        properties.put("git.bare", String.valueOf(bare));
+        properties.put("git.fetchonly", String.valueOf(fetchOnly));
+        properties.put("git.fetch.freshness", String.valueOf(fetchFreshness));
+        properties.put("git.keyindex", String.valueOf(keyIndex));
+        properties.put("git.firstparent", String.valueOf(firstParent));
+        properties.put("git.firstparent.merges", String.valueOf(firstParentMerges));
+        if (tagPattern != null) {
+            properties.put("git.tag.pattern", tagPattern);
+        }
         properties.put("git.username", "username");
         properties.put("git.password", "password");
         properties.put("git.committer.name", "username");
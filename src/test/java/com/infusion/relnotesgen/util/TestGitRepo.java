@@ -7,12 +7,23 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.InvalidRemoteException;
 import org.eclipse.jgit.api.errors.TransportException;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.junit.Assert;
 
 import com.infusion.relnotesgen.GitMessageReadingTest;
@@ -71,6 +82,87 @@ public class TestGitRepo {
         }
     }
 
+    /**
+     * Creates merge commit on top of local master without touching working tree, tree of merge commit is the
+     * same as tree of first parent.
+     *
+     * @return id of created merge commit
+     */
+    public String merge(final String message, final String... revisions) {
+        return commit(gitRepo.getRepository(), message, revisions);
+    }
+
+    /**
+     * Creates commit on top of master of origin repository without touching its working tree, tree of commit is
+     * the same as tree of its parent.
+     *
+     * @return id of created commit
+     */
+    public String commitInOrigin(final String message) {
+        try {
+            Repository origin = new FileRepositoryBuilder().setGitDir(originTempRepo).build();
+            try {
+                return commit(origin, message);
+            } finally {
+                origin.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Creates lightweight tag of given commit in origin repository.
+     */
+    public void tagInOrigin(final String name, final String commitId) {
+        try {
+            Repository origin = new FileRepositoryBuilder().setGitDir(originTempRepo).build();
+            try {
+                RefUpdate update = origin.updateRef(Constants.R_TAGS + name);
+                update.setNewObjectId(ObjectId.fromString(commitId));
+                update.forceUpdate();
+            } finally {
+                origin.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String commit(final Repository repository, final String message, final String... revisions) {
+        ObjectInserter inserter = repository.newObjectInserter();
+        RevWalk walk = new RevWalk(repository);
+        try {
+            CommitBuilder commit = new CommitBuilder();
+            PersonIdent ident = new PersonIdent("username", "mail@mail.com");
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage(message);
+
+            ObjectId head = repository.resolve(Constants.HEAD);
+            commit.setTreeId(walk.parseCommit(head).getTree());
+            List<ObjectId> parents = new ArrayList<ObjectId>();
+            parents.add(head);
+            for (String revision : revisions) {
+                parents.add(repository.resolve(revision));
+            }
+            commit.setParentIds(parents);
+
+            ObjectId commitId = inserter.insert(commit);
+            inserter.flush();
+
+            RefUpdate update = repository.updateRef(Constants.HEAD);
+            update.setNewObjectId(commitId);
+            update.forceUpdate();
+            return commitId.getName();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            walk.release();
+            inserter.release();
+        }
+    }
+
     public TestConfigurationBuilder configuration() {
         return new TestConfigurationBuilder()
             .gitDirectory(testTempRepo.getAbsolutePath())